@@ -0,0 +1,26 @@
+package edu.iastate.cs228.hw3;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for loading many elements into a StoutList at once.
+ */
+@Name("edu.iastate.cs228.hw3.BulkLoad")
+@Label("StoutList Bulk Load")
+@Category("StoutList")
+@Description("Elements packed into a StoutList by addAll(), an array or collection constructor, or a reload")
+class BulkLoadEvent extends Event
+{
+	@Label("Elements Given")
+	int given;
+
+	@Label("Elements Added")
+	int added;
+
+	@Label("Node Size")
+	int nodeSize;
+}
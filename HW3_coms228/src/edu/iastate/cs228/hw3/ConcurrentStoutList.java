@@ -0,0 +1,868 @@
+package edu.iastate.cs228.hw3;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe version of StoutList.  Elements are stored in the same kind of
+ * linked nodes and the same rules for adding and removing elements keep each
+ * node (except possibly the last one) at least half full.
+ *
+ * Every node has its own StampedLock.  Readers walk the chain with optimistic
+ * reads, validating each node's stamp and only falling back to a read lock on
+ * the node that changed under them.  Writers lock just the nodes they modify:
+ * the target node for an insertion or a split, its predecessor when the item
+ * goes to the end of the previous node, and the predecessor and successor for
+ * a removal and the borrow or merge that may follow.  Locks are always taken
+ * from head to tail, so writers cannot deadlock.
+ *
+ * The link between a node and its successor (node.next and next.previous) may
+ * only be changed by a thread holding the lock of the node, and a node's data
+ * and count only by a thread holding its own lock.
+ *
+ * Positions are resolved by walking the chain, so an operation that runs while
+ * other threads insert or remove earlier elements applies at the position seen
+ * during its walk.  Iterators are weakly consistent: they never throw
+ * ConcurrentModificationException but may miss or repeat elements that are
+ * moved between nodes while they run.  indexOf(), lastIndexOf(), equals(),
+ * hashCode() and clear() run on such an iterator.  List iterators and
+ * sublists, which would resolve every step by position, are not supported,
+ * and neither are the List methods built on them, replaceAll() and sort().
+ */
+public class ConcurrentStoutList<E extends Comparable<? super E>> extends AbstractList<E>
+{
+  /**
+   * Default number of elements that may be stored in each node.
+   */
+  private static final int DEFAULT_NODESIZE = 4;
+
+  /**
+   * Number of elements that can be stored in each node.
+   */
+  private final int nodeSize;
+
+  /**
+   * Dummy node for head.
+   */
+  private final Node head;
+
+  /**
+   * Dummy node for tail.
+   */
+  private final Node tail;
+
+  /**
+   * Number of elements in the list.
+   */
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * Number of occurrences of each element, used for duplicate checks and contains().
+   */
+  private final ConcurrentHashMap<E, Integer> members = new ConcurrentHashMap<>();
+
+  /**
+   * Number of elements borrowed back into a predecessor node.  A search that
+   * walked past the predecessor may have missed such an element, so it
+   * retries if this changed while it ran.
+   */
+  private final AtomicInteger borrows = new AtomicInteger();
+
+  /**
+   * Constructs an empty list with the default node size.
+   */
+  public ConcurrentStoutList()
+  {
+    this(DEFAULT_NODESIZE);
+  }
+
+  /**
+   * Constructs an empty list with the given node size.
+   * @param nodeSize number of elements that may be stored in each node, must be
+   *   an even number
+   */
+  public ConcurrentStoutList(int nodeSize)
+  {
+    if (nodeSize <= 0 || nodeSize % 2 != 0)
+    	throw new IllegalArgumentException();
+    this.nodeSize = nodeSize;
+
+    // Initialize dummy nodes
+    head = new Node();
+    tail = new Node();
+    head.next = tail;
+    tail.previous = head;
+  }
+
+  @Override
+  public int size()
+  {
+	  return size.get();
+  }
+
+  @Override
+  public boolean contains(Object item)
+  {
+	  return item != null && members.containsKey(item);
+  }
+
+  /**
+   * Appends an item to the end of the list unless the list already contains it.
+   *
+   * @param item element to be added
+   * @return true if the item was added
+   */
+  @Override
+  public boolean add(E item)
+  {
+	  if (item == null)
+		  throw new NullPointerException();
+
+	  // Claim the item; a concurrent add of an equal item will see it
+	  if (members.putIfAbsent(item, 1) != null)
+		  return false;
+
+	  while (true) {
+		  Node last = tail.previous;
+		  long stamp = last.lock.writeLock();
+		  try {
+			  // Another thread may have appended or removed the last node
+			  if (last.unlinked || last.next != tail)
+				  continue;
+
+			  if (last != head && last.count < nodeSize) {
+				  last.data[last.count++] = item;
+			  } else {
+				  // The last node is full, so create a new node after it
+				  Node node = new Node();
+				  node.data[0] = item;
+				  node.count = 1;
+				  linkAfter(last, node);
+			  }
+			  // Counted while the node is locked, as removals are
+			  size.incrementAndGet();
+			  return true;
+		  } finally {
+			  last.lock.unlockWrite(stamp);
+		  }
+	  }
+  }
+
+  @Override
+  public void add(int pos, E item)
+  {
+	  if (item == null)
+		  throw new NullPointerException();
+
+	  while (!tryInsert(pos, item)) {
+		  // The nodes changed between the walk and the locking; try again
+	  }
+	  members.merge(item, 1, Integer::sum);
+  }
+
+  /**
+   * Makes one attempt at inserting an item at the given position.  The size
+   * is counted while the modified node is still locked.
+   *
+   * @return false if the nodes changed concurrently and the attempt must be repeated
+   */
+  private boolean tryInsert(int pos, E item)
+  {
+	  Location location = locate(pos, true);
+	  Node node = location.node;
+	  int offset = location.offset;
+
+	  // At the beginning of a node, the item may go to the end of the previous node
+	  if (offset == 0) {
+		  Node pred = node.previous;
+		  long stamp = pred.lock.writeLock();
+		  try {
+			  if (pred.unlinked || pred.next != node)
+				  return false;
+			  if (pred != head && pred.count < nodeSize) {
+				  pred.data[pred.count++] = item;
+				  size.incrementAndGet();
+				  return true;
+			  }
+			  if (node == tail) {
+				  // Put the item in a new last node
+				  Node newNode = new Node();
+				  newNode.data[0] = item;
+				  newNode.count = 1;
+				  linkAfter(pred, newNode);
+				  size.incrementAndGet();
+				  return true;
+			  }
+		  } finally {
+			  pred.lock.unlockWrite(stamp);
+		  }
+	  }
+
+	  long stamp = node.lock.writeLock();
+	  try {
+		  if (node.unlinked || node == tail || offset > node.count)
+			  return false;
+
+		  if (node.count < nodeSize) {
+			  node.insert(offset, item);
+		  } else {
+			  // Split the full node; only its own lock is needed to link the successor
+			  Node newSuccessor = new Node();
+			  int half = nodeSize / 2;
+			  System.arraycopy(node.data, half, newSuccessor.data, 0, half);
+			  for (int i = half; i < nodeSize; i++)
+				  node.data[i] = null;
+			  node.count = half;
+			  newSuccessor.count = half;
+			  linkAfter(node, newSuccessor);
+
+			  if (offset <= half)
+				  node.insert(offset, item);
+			  else
+				  newSuccessor.insert(offset - half, item);
+		  }
+		  size.incrementAndGet();
+		  return true;
+	  } finally {
+		  node.lock.unlockWrite(stamp);
+	  }
+  }
+
+  @Override
+  public E get(int pos)
+  {
+	  if (pos < 0)
+		  throw new IndexOutOfBoundsException();
+
+	  retry:
+	  while (true) {
+		  int base = 0;
+		  Node temp = head.next;
+		  while (temp != tail) {
+			  // Read the node optimistically and validate
+			  long stamp = temp.lock.tryOptimisticRead();
+			  int count = temp.count;
+			  Node next = temp.next;
+			  boolean unlinked = temp.unlinked;
+			  E item = pos - base < count ? temp.data[pos - base] : null;
+			  if (!temp.lock.validate(stamp)) {
+				  // A writer got in the way, so read the node under its lock
+				  stamp = temp.lock.readLock();
+				  try {
+					  count = temp.count;
+					  next = temp.next;
+					  unlinked = temp.unlinked;
+					  item = pos - base < count ? temp.data[pos - base] : null;
+				  } finally {
+					  temp.lock.unlockRead(stamp);
+				  }
+			  }
+			  if (unlinked)
+				  continue retry;
+			  if (pos - base < count)
+				  return item;
+			  base += count;
+			  temp = next;
+		  }
+		  throw new IndexOutOfBoundsException();
+	  }
+  }
+
+  @Override
+  public E set(int pos, E item)
+  {
+	  if (item == null)
+		  throw new NullPointerException();
+
+	  while (true) {
+		  Location location = locate(pos, false);
+		  Node node = location.node;
+		  long stamp = node.lock.writeLock();
+		  E old;
+		  try {
+			  if (node.unlinked || location.offset >= node.count)
+				  continue;
+			  old = node.data[location.offset];
+			  node.data[location.offset] = item;
+		  } finally {
+			  node.lock.unlockWrite(stamp);
+		  }
+		  members.merge(item, 1, Integer::sum);
+		  forget(old);
+		  return old;
+	  }
+  }
+
+  @Override
+  public E remove(int pos)
+  {
+	  while (true) {
+		  Location location = locate(pos, false);
+		  E item = tryRemove(location.node, location.offset, null);
+		  if (item != null)
+			  return item;
+	  }
+  }
+
+  /**
+   * Removes the first occurrence of the item from the list.
+   *
+   * @param item element to be removed
+   * @return true if the list contained the item
+   */
+  @Override
+  public boolean remove(Object item)
+  {
+	  if (item == null)
+		  return false;
+	  while (true) {
+		  Location location = locate(item);
+		  if (location == null)
+			  return false;
+		  if (tryRemove(location.node, location.offset, item) != null)
+			  return true;
+	  }
+  }
+
+  /**
+   * Makes one attempt at removing the element at the given node and offset.
+   * The node is locked together with its predecessor and successor.
+   *
+   * @param node node holding the element
+   * @param offset offset of the element in the node
+   * @param expected element that must be at that offset, or null for any
+   * @return the removed element, or null if the nodes changed concurrently
+   */
+  private E tryRemove(Node node, int offset, Object expected)
+  {
+	  Node pred = node.previous;
+	  long predStamp = pred.lock.writeLock();
+	  try {
+		  // Once pred.next == node is validated, node cannot be unlinked by anyone else
+		  if (pred.unlinked || pred.next != node)
+			  return null;
+		  long stamp = node.lock.writeLock();
+		  try {
+			  if (offset >= node.count || (expected != null && !expected.equals(node.data[offset])))
+				  return null;
+			  Node succesor = node.next;
+			  long succStamp = succesor.lock.writeLock();
+			  try {
+				  E item = removeLocked(node, offset);
+				  forget(item);
+				  size.decrementAndGet();
+				  return item;
+			  } finally {
+				  succesor.lock.unlockWrite(succStamp);
+			  }
+		  } finally {
+			  node.lock.unlockWrite(stamp);
+		  }
+	  } finally {
+		  pred.lock.unlockWrite(predStamp);
+	  }
+  }
+
+  /**
+   * Removes an element with the same rules as StoutList.remove(int).
+   * The caller holds the locks of the node, its predecessor and its successor.
+   */
+  private E removeLocked(Node temp, int offset)
+  {
+	  E nodeValue = temp.data[offset];
+	  Node succesor = temp.next;
+
+	  if (succesor == tail && temp.count == 1) {
+		  // Remove the last node, which only held this element
+		  temp.data[0] = null;
+		  temp.count = 0;
+		  unlink(temp);
+	  } else if (succesor == tail || temp.count > nodeSize / 2) {
+		  temp.delete(offset);
+	  } else {
+		  temp.delete(offset);
+		  if (succesor.count > nodeSize / 2) {
+			  // Borrow the first element of the successor
+			  temp.data[temp.count++] = succesor.data[0];
+			  succesor.delete(0);
+			  borrows.incrementAndGet();
+		  } else {
+			  // Merge the successor into this node
+			  System.arraycopy(succesor.data, 0, temp.data, temp.count, succesor.count);
+			  temp.count += succesor.count;
+			  unlink(succesor);
+		  }
+	  }
+	  return nodeValue;
+  }
+
+  /**
+   * Records that one occurrence of the item left the list.
+   */
+  private void forget(E item)
+  {
+	  members.computeIfPresent(item, (key, count) -> count == 1 ? null : count - 1);
+  }
+
+  /**
+   * Links a new node after the given one.  The caller holds the lock of prev.
+   */
+  private void linkAfter(Node prev, Node node)
+  {
+	  Node next = prev.next;
+	  node.previous = prev;
+	  node.next = next;
+	  next.previous = node;
+	  prev.next = node;
+  }
+
+  /**
+   * Unlinks a node.  The caller holds the locks of the node and its predecessor.
+   */
+  private void unlink(Node node)
+  {
+	  node.unlinked = true;
+	  node.previous.next = node.next;
+	  node.next.previous = node.previous;
+  }
+
+  /**
+   * Walks the chain to the node holding the given position.
+   *
+   * @param pos position in the list
+   * @param allowEnd whether pos may be the position after the last element,
+   *   in which case the tail is returned
+   * @return the node and the offset of the position within it
+   */
+  private Location locate(int pos, boolean allowEnd)
+  {
+	  if (pos < 0)
+		  throw new IndexOutOfBoundsException();
+
+	  retry:
+	  while (true) {
+		  int base = 0;
+		  Node temp = head.next;
+		  while (temp != tail) {
+			  long stamp = temp.lock.tryOptimisticRead();
+			  int count = temp.count;
+			  Node next = temp.next;
+			  boolean unlinked = temp.unlinked;
+			  if (!temp.lock.validate(stamp)) {
+				  stamp = temp.lock.readLock();
+				  try {
+					  count = temp.count;
+					  next = temp.next;
+					  unlinked = temp.unlinked;
+				  } finally {
+					  temp.lock.unlockRead(stamp);
+				  }
+			  }
+			  if (unlinked)
+				  continue retry;
+			  if (pos - base < count)
+				  return new Location(temp, pos - base);
+			  base += count;
+			  temp = next;
+		  }
+		  if (allowEnd && pos == base)
+			  return new Location(tail, 0);
+		  throw new IndexOutOfBoundsException();
+	  }
+  }
+
+  /**
+   * Walks the chain to the first occurrence of the given item.  A walk that
+   * finds nothing starts over if an element was borrowed back meanwhile.
+   *
+   * @return the node and offset of the item, or null if it is not in the list
+   */
+  private Location locate(Object item)
+  {
+	  retry:
+	  while (true) {
+		  int borrowed = borrows.get();
+		  Node temp = head.next;
+		  while (temp != tail) {
+			  long stamp = temp.lock.tryOptimisticRead();
+			  int offset = temp.indexOf(item);
+			  Node next = temp.next;
+			  boolean unlinked = temp.unlinked;
+			  if (!temp.lock.validate(stamp)) {
+				  stamp = temp.lock.readLock();
+				  try {
+					  offset = temp.indexOf(item);
+					  next = temp.next;
+					  unlinked = temp.unlinked;
+				  } finally {
+					  temp.lock.unlockRead(stamp);
+				  }
+			  }
+			  if (unlinked)
+				  continue retry;
+			  if (offset >= 0)
+				  return new Location(temp, offset);
+			  temp = next;
+		  }
+		  if (borrows.get() != borrowed)
+			  continue retry;
+		  return null;
+	  }
+  }
+
+  /**
+   * Returns a weakly consistent iterator.  Each node is copied under a
+   * validated optimistic read when the iterator reaches it.
+   */
+  @Override
+  public Iterator<E> iterator()
+  {
+	  return new ConcurrentStoutListIterator();
+  }
+
+  /**
+   * Not supported: positions shift under concurrent insertions and removals,
+   * so a list iterator could not keep its place.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public ListIterator<E> listIterator()
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, as for listIterator().
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public ListIterator<E> listIterator(int index)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported: a view over a range of positions would drift as other
+   * threads insert and remove elements before it.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public List<E> subList(int fromIndex, int toIndex)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the position of the first occurrence of an item, as seen by a
+   * weakly consistent traversal, or -1 if the list does not contain it.
+   * Items that are not in the list are answered from the membership map.
+   */
+  @Override
+  public int indexOf(Object item)
+  {
+	  if (!contains(item))
+		  return -1;
+	  int pos = 0;
+	  for (E temp : this) {
+		  if (temp.equals(item))
+			  return pos;
+		  pos++;
+	  }
+	  return -1;
+  }
+
+  /**
+   * Returns the position of the last occurrence of an item, as seen by a
+   * weakly consistent traversal, or -1 if the list does not contain it.
+   */
+  @Override
+  public int lastIndexOf(Object item)
+  {
+	  if (!contains(item))
+		  return -1;
+	  int pos = 0, last = -1;
+	  for (E temp : this) {
+		  if (temp.equals(item))
+			  last = pos;
+		  pos++;
+	  }
+	  return last;
+  }
+
+  /**
+   * Compares the elements seen by a weakly consistent traversal with those
+   * of another list, in order.
+   */
+  @Override
+  public boolean equals(Object o)
+  {
+	  if (o == this)
+		  return true;
+	  if (!(o instanceof List))
+		  return false;
+	  Iterator<?> other = ((List<?>) o).iterator();
+	  for (E temp : this)
+		  if (!other.hasNext() || !temp.equals(other.next()))
+			  return false;
+	  return !other.hasNext();
+  }
+
+  /**
+   * Returns the List hash code of the elements seen by a weakly consistent
+   * traversal.
+   */
+  @Override
+  public int hashCode()
+  {
+	  int hash = 1;
+	  for (E temp : this)
+		  hash = 31 * hash + temp.hashCode();
+	  return hash;
+  }
+
+  /**
+   * Removes the elements seen by a weakly consistent traversal.  Elements
+   * that other threads add meanwhile may remain.
+   */
+  @Override
+  public void clear()
+  {
+	  for (Iterator<E> iter = iterator(); iter.hasNext(); ) {
+		  iter.next();
+		  iter.remove();
+	  }
+  }
+
+  /**
+   * Checks that the chain is well formed and that every node except the last
+   * one is at least half full, locking one node at a time.
+   *
+   * @throws IllegalStateException if the structure is broken
+   */
+  void checkInvariants()
+  {
+	  Node temp = head;
+	  while (temp != tail) {
+		  Node next;
+		  long stamp = temp.lock.readLock();
+		  try {
+			  if (temp.unlinked)
+				  return; // The chain moved on; the nodes still linked were checked before
+			  next = temp.next;
+			  if (temp != head) {
+				  if (temp.count < 1 || temp.count > nodeSize)
+					  throw new IllegalStateException("node count " + temp.count);
+				  if (next != tail && temp.count < nodeSize / 2)
+					  throw new IllegalStateException("node less than half full: " + temp.count);
+				  for (int i = 0; i < nodeSize; i++)
+					  if ((temp.data[i] == null) != (i >= temp.count))
+						  throw new IllegalStateException("node slots out of step with count");
+			  }
+			  if (next.previous != temp)
+				  throw new IllegalStateException("broken back link");
+		  } finally {
+			  temp.lock.unlockRead(stamp);
+		  }
+		  temp = next;
+	  }
+  }
+
+  /**
+   * Node type for this list.  Each node holds a maximum of nodeSize elements
+   * in an array, guarded by the node's lock.  Empty slots are null.
+   */
+  private class Node
+  {
+	/**
+	 * Lock guarding the data and count of this node and its link to the next node.
+	 */
+	final StampedLock lock = new StampedLock();
+
+	/**
+	 * Array of actual data elements.
+	 */
+	// Unchecked warning unavoidable.
+	@SuppressWarnings("unchecked")
+	final E[] data = (E[]) new Comparable[nodeSize];
+
+	/**
+	 * Number of elements in this node.
+	 */
+	int count;
+
+	/**
+	 * Links to the neighbouring nodes.
+	 */
+	volatile Node next, previous;
+
+	/**
+	 * Set once the node has been removed from the chain.
+	 */
+	volatile boolean unlinked;
+
+	/**
+	 * Inserts an item at the given offset, shifting later elements right.
+	 * Precondition: count < nodeSize
+	 */
+	void insert(int offset, E item)
+	{
+		System.arraycopy(data, offset, data, offset + 1, count - offset);
+		data[offset] = item;
+		count++;
+	}
+
+	/**
+	 * Deletes the element at the given offset, shifting later elements left.
+	 */
+	void delete(int offset)
+	{
+		System.arraycopy(data, offset + 1, data, offset, count - offset - 1);
+		data[--count] = null;
+	}
+
+	/**
+	 * Returns the offset of the first element equal to the item, or -1.
+	 * Safe to call during an optimistic read.
+	 */
+	int indexOf(Object item)
+	{
+		int n = Math.min(count, nodeSize);
+		for (int i = 0; i < n; i++) {
+			E element = data[i];
+			if (element != null && element.equals(item))
+				return i;
+		}
+		return -1;
+	}
+  }
+
+  /**
+   * A node and an offset within it.
+   */
+  private class Location
+  {
+	final Node node;
+	final int offset;
+
+	Location(Node node, int offset)
+	{
+		this.node = node;
+		this.offset = offset;
+	}
+  }
+
+  /**
+   * Weakly consistent iterator that copies one node at a time.
+   */
+  private class ConcurrentStoutListIterator implements Iterator<E>
+  {
+	/**
+	 * Node whose elements are in the buffer.
+	 */
+	Node node = head;
+
+	/**
+	 * Copy of the remaining elements of node.
+	 */
+	@SuppressWarnings("unchecked")
+	final E[] buffer = (E[]) new Comparable[nodeSize];
+
+	/**
+	 * Number of elements in the buffer and index of the next one.
+	 */
+	int count, index;
+
+	/**
+	 * List position of the next element, as seen by this iterator.
+	 */
+	int position;
+
+	/**
+	 * Element returned by the last call to next(), or null.
+	 */
+	E lastReturned;
+
+	@Override
+	public boolean hasNext()
+	{
+		while (index >= count) {
+			if (node == tail)
+				return false;
+			load(node.next, 0);
+		}
+		return true;
+	}
+
+	/**
+	 * Copies the elements of a node from the given offset on into the buffer.
+	 */
+	private void load(Node next, int from)
+	{
+		long stamp = next.lock.tryOptimisticRead();
+		int n = Math.max(0, Math.min(next.count, nodeSize) - from);
+		System.arraycopy(next.data, from, buffer, 0, n);
+		if (!next.lock.validate(stamp)) {
+			stamp = next.lock.readLock();
+			try {
+				n = Math.max(0, next.count - from);
+				System.arraycopy(next.data, from, buffer, 0, n);
+			} finally {
+				next.lock.unlockRead(stamp);
+			}
+		}
+		node = next;
+		count = n;
+		index = 0;
+	}
+
+	@Override
+	public E next()
+	{
+		if (!hasNext())
+			throw new NoSuchElementException();
+		lastReturned = buffer[index++];
+		position++;
+		return lastReturned;
+	}
+
+	@Override
+	public void remove()
+	{
+		if (lastReturned == null)
+			throw new IllegalStateException();
+
+		// Remove the element where it was last seen, or else its first occurrence
+		E removed = null;
+		try {
+			Location location = locate(position - 1, false);
+			removed = tryRemove(location.node, location.offset, lastReturned);
+		} catch (IndexOutOfBoundsException e) {
+			// The list shrank concurrently
+		}
+		if (removed == null)
+			ConcurrentStoutList.this.remove(lastReturned);
+		position--;
+		lastReturned = null;
+
+		// The removal may have borrowed or merged elements into nodes already
+		// copied, so reload the rest of the node holding the next position
+		try {
+			Location location = locate(position, true);
+			load(location.node, location.offset);
+		} catch (IndexOutOfBoundsException e) {
+			node = tail;
+			count = 0;
+			index = 0;
+		}
+	}
+  }
+}
@@ -0,0 +1,843 @@
+package edu.iastate.cs228.hw3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * StoutList whose mutations are recorded in a write-ahead journal, so that the
+ * list survives a restart.  The list lives in a directory holding a checkpoint,
+ * written by StoutList.writeTo(), and the journal of the changes made since.
+ * Both carry a generation number in their names; checkpoint() writes the next
+ * generation and starts an empty journal for it.
+ *
+ * Journal records are collected in a buffer and written, and forced to disk,
+ * as one group according to the FsyncPolicy.  Each record carries its length
+ * and a CRC32 checksum, and recovery stops at the first torn record.  On open,
+ * the checkpoint is bulk-loaded and the journal replayed on top of it, with
+ * runs of appended elements loaded in bulk as well.
+ *
+ * Mutations made through iterators and the methods inherited from the
+ * collection classes are recorded too.  If a record cannot be written, the
+ * mutation has already been applied and an UncheckedIOException is thrown.
+ *
+ * @param <E> type of the elements
+ */
+public class DurableStoutList<E extends Comparable<? super E>> extends StoutList<E> implements Closeable
+{
+  /**
+   * When journal records are forced to disk.
+   */
+  public enum FsyncPolicy
+  {
+	  /**
+	   * Each record is written and forced before the mutation returns.
+	   */
+	  ALWAYS,
+
+	  /**
+	   * Records are written and forced in groups; see setGroupCommit().
+	   */
+	  GROUP_COMMIT,
+
+	  /**
+	   * Records are written in groups but only forced by sync(), checkpoint()
+	   * and close(), so they survive a crash of the process but not of the system.
+	   */
+	  NEVER
+  }
+
+  /**
+   * Record types.
+   */
+  private static final byte ADD = 1, INSERT = 2, REMOVE = 3, SET = 4, SORT = 5, SORT_REVERSE = 6, ADD_ALL = 7, CONTENTS = 8;
+
+  /**
+   * Bytes before the payload of a record: its length and its checksum.
+   */
+  private static final int RECORD_HEADER = 8;
+
+  /**
+   * Largest payload recovery accepts; anything larger is taken as a torn record.
+   */
+  private static final int MAX_RECORD = 1 << 30;
+
+  /**
+   * Directory holding the checkpoint and the journal.
+   */
+  private final Path dir;
+
+  /**
+   * Codec used for the elements in the checkpoint and the journal.
+   */
+  private final ElementCodec<E> codec;
+
+  /**
+   * When records are forced to disk.
+   */
+  private final FsyncPolicy policy;
+
+  /**
+   * Number of records after which a group is committed.
+   */
+  private int maxGroupRecords = 256;
+
+  /**
+   * Age of the oldest record after which a group is committed, in nanoseconds.
+   */
+  private long maxGroupDelay = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /**
+   * Generation of the current checkpoint and journal.
+   */
+  private long generation;
+
+  /**
+   * Journal of the current generation, open for appending.
+   */
+  private FileChannel journal;
+
+  /**
+   * Records not yet written to the journal.
+   */
+  private ByteBuffer buf = ByteBuffer.allocate(1 << 16).order(MappedStoutList.ORDER);
+
+  /**
+   * Start of the record being built in buf.
+   */
+  private int recordStart;
+
+  /**
+   * Number of records not yet committed, and the time the oldest was added.
+   */
+  private int pending;
+  private long pendingSince;
+
+  /**
+   * Whether mutations are recorded; off during recovery and inside operations
+   * that are recorded as a whole.
+   */
+  private boolean logging;
+
+  private final CRC32 crc = new CRC32();
+
+  private DurableStoutList(Path dir, ElementCodec<E> codec, int nodeSize, boolean indexMembership, FsyncPolicy policy)
+  {
+	  super(nodeSize, indexMembership);
+	  this.dir = dir;
+	  this.codec = codec;
+	  this.policy = policy;
+  }
+
+  /**
+   * Opens the list stored in a directory, creating an empty one if there is
+   * none, and recovers its contents from the latest checkpoint and journal.
+   * The list has no membership index.
+   *
+   * @param dir directory holding the list
+   * @param codec codec used for the elements
+   * @param nodeSize number of elements that may be stored in each node, must be
+   *   an even number
+   * @param policy when journal records are forced to disk
+   * @return the recovered list
+   * @throws IOException if the directory cannot be read or written, or holds
+   *   a corrupt checkpoint
+   */
+  public static <E extends Comparable<? super E>> DurableStoutList<E> open(Path dir, ElementCodec<E> codec, int nodeSize, FsyncPolicy policy) throws IOException
+  {
+	  return open(dir, codec, nodeSize, false, policy);
+  }
+
+  /**
+   * Opens the list stored in a directory as open(dir, codec, nodeSize,
+   * policy) does, with or without the membership index of StoutList(int,
+   * boolean).
+   *
+   * @param dir directory holding the list
+   * @param codec codec used for the elements
+   * @param nodeSize number of elements that may be stored in each node, must be
+   *   an even number
+   * @param indexMembership whether to maintain the membership index
+   * @param policy when journal records are forced to disk
+   * @return the recovered list
+   * @throws IOException if the directory cannot be read or written, or holds
+   *   a corrupt checkpoint
+   */
+  public static <E extends Comparable<? super E>> DurableStoutList<E> open(Path dir, ElementCodec<E> codec, int nodeSize, boolean indexMembership, FsyncPolicy policy) throws IOException
+  {
+	  DurableStoutList<E> list = new DurableStoutList<>(dir, codec, nodeSize, indexMembership, policy);
+	  list.recover();
+	  list.logging = true;
+	  return list;
+  }
+
+  /**
+   * Sets when GROUP_COMMIT and NEVER commit a group: once it holds maxRecords
+   * records, or when a record is added after the oldest one has waited for
+   * maxDelay.  Call sync() to commit a group right away.
+   *
+   * @param maxRecords largest number of records in a group
+   * @param maxDelay longest wait of a record, checked as records are added
+   * @param unit unit of maxDelay
+   */
+  public void setGroupCommit(int maxRecords, long maxDelay, TimeUnit unit)
+  {
+	  if (maxRecords < 1 || maxDelay < 0)
+		  throw new IllegalArgumentException();
+	  maxGroupRecords = maxRecords;
+	  maxGroupDelay = unit.toNanos(maxDelay);
+  }
+
+  /**
+   * Writes all pending records to the journal and forces them to disk.
+   *
+   * @throws IOException if the journal cannot be written
+   */
+  public void sync() throws IOException
+  {
+	  commit(true);
+  }
+
+  /**
+   * Writes the whole list as the checkpoint of a new generation and starts an
+   * empty journal for it.  The files of the previous generation are deleted.
+   *
+   * @throws IOException if the files cannot be written
+   */
+  public void checkpoint() throws IOException
+  {
+	  sync();
+	  long next = generation + 1;
+	  Path tmp = dir.resolve("checkpoint-" + next + ".tmp");
+	  writeTo(tmp, codec);
+	  try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+		  channel.force(true);
+	  }
+	  Files.move(tmp, checkpoint(next), StandardCopyOption.ATOMIC_MOVE);
+
+	  FileChannel nextJournal = FileChannel.open(journal(next), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	  journal.close();
+	  journal = nextJournal;
+	  Files.deleteIfExists(journal(generation));
+	  Files.deleteIfExists(checkpoint(generation));
+	  generation = next;
+  }
+
+  /**
+   * Syncs the journal and closes it.  The list must not be modified afterwards.
+   */
+  @Override
+  public void close() throws IOException
+  {
+	  if (journal.isOpen()) {
+		  sync();
+		  journal.close();
+	  }
+  }
+
+  @Override
+  public boolean add(E item)
+  {
+	  boolean added = super.add(item);
+	  if (added && logging) {
+		  begin(ADD, codec.width());
+		  put(item);
+		  end();
+	  }
+	  return added;
+  }
+
+  @Override
+  public void add(int pos, E item)
+  {
+	  super.add(pos, item);
+	  if (logging)
+		  logAt(INSERT, pos, item);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean addAll(Collection<? extends E> items)
+  {
+	  // Record the elements as they were passed; replay skips the same duplicates
+	  E[] arr = items.toArray((E[]) new Comparable[0]);
+	  boolean changed = super.addAll(List.of(arr));
+	  if (changed && logging)
+		  logElements(ADD_ALL, arr);
+	  return changed;
+  }
+
+  @Override
+  public E remove(int pos)
+  {
+	  E item = super.remove(pos);
+	  if (logging)
+		  logAt(REMOVE, pos, null);
+	  return item;
+  }
+
+  @Override
+  public boolean offerFirst(E item)
+  {
+	  // addFirst() and push() come here; addLast() and offerLast() go through add(E)
+	  boolean added = super.offerFirst(item);
+	  if (added && logging)
+		  logAt(INSERT, 0, item);
+	  return added;
+  }
+
+  @Override
+  public E pollFirst()
+  {
+	  E item = super.pollFirst();
+	  if (item != null && logging)
+		  logAt(REMOVE, 0, null);
+	  return item;
+  }
+
+  @Override
+  public E pollLast()
+  {
+	  E item = super.pollLast();
+	  if (item != null && logging)
+		  logAt(REMOVE, size(), null);
+	  return item;
+  }
+
+  @Override
+  public E set(int pos, E item)
+  {
+	  E old = super.set(pos, item);
+	  if (logging)
+		  logAt(SET, pos, item);
+	  return old;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void clear()
+  {
+	  E[] none = (E[]) new Comparable[0];
+	  reload(none);
+	  if (logging)
+		  logElements(CONTENTS, none);
+  }
+
+  /**
+   * Removes the elements that satisfy the filter in one pass, and records
+   * the contents that remain.  removeAll() and retainAll() come here too.
+   */
+  @Override
+  public boolean removeIf(Predicate<? super E> filter)
+  {
+	  boolean changed;
+	  try {
+		  changed = super.removeIf(filter);
+	  } catch (RuntimeException | Error e) {
+		  // The elements removed before the failure stay removed
+		  if (logging)
+			  logContents();
+		  throw e;
+	  }
+	  if (changed && logging)
+		  logContents();
+	  return changed;
+  }
+
+  @Override
+  protected void removeRange(int fromIndex, int toIndex)
+  {
+	  super.removeRange(fromIndex, toIndex);
+	  if (logging)
+		  logRemoved(fromIndex, toIndex);
+  }
+
+  /**
+   * Records the elements that splitAt() or spliceIn() moved out of the list.
+   */
+  @Override
+  void movedOut(int fromIndex, int toIndex)
+  {
+	  if (logging)
+		  logRemoved(fromIndex, toIndex);
+  }
+
+  /**
+   * Records the elements that spliceIn() moved into the list.
+   */
+  @Override
+  void movedIn(int fromIndex, int toIndex)
+  {
+	  if (!logging)
+		  return;
+	  // Record whichever is shorter: the insertions or the whole contents
+	  if (toIndex - fromIndex > size() - (toIndex - fromIndex)) {
+		  logContents();
+	  } else {
+		  ListIterator<E> iter = super.listIterator(fromIndex);
+		  for (int pos = fromIndex; pos < toIndex; pos++)
+			  logAt(INSERT, pos, iter.next());
+	  }
+  }
+
+  /**
+   * Applies the edits and records them one by one, or records the contents
+   * that result if that is shorter.
+   */
+  @Override
+  public void applyBatch(List<Edit<E>> edits)
+  {
+	  super.applyBatch(edits);
+	  if (!logging || edits.isEmpty())
+		  return;
+	  if (edits.size() > size()) {
+		  logContents();
+	  } else {
+		  for (Edit<E> edit : edits) {
+			  if (edit.op() == Edit.Op.INSERT)
+				  logAt(INSERT, edit.pos(), edit.item());
+			  else if (edit.op() == Edit.Op.REMOVE)
+				  logAt(REMOVE, edit.pos(), null);
+			  else
+				  logAt(SET, edit.pos(), edit.item());
+		  }
+	  }
+  }
+
+  @Override
+  public void sort(Comparator<? super E> comp)
+  {
+	  super.sort(comp);
+	  if (logging)
+		  logSort(comp);
+  }
+
+  @Override
+  public void parallelSort(Comparator<? super E> comp)
+  {
+	  // Small lists are handed to sort(Comparator), which must not record them again
+	  logging = false;
+	  try {
+		  super.parallelSort(comp);
+	  } finally {
+		  logging = true;
+	  }
+	  logSort(comp);
+  }
+
+  @Override
+  public Iterator<E> iterator()
+  {
+	  return listIterator(0);
+  }
+
+  @Override
+  public ListIterator<E> listIterator()
+  {
+	  return listIterator(0);
+  }
+
+  @Override
+  public ListIterator<E> listIterator(int index)
+  {
+	  return new JournalingIterator(super.listIterator(index));
+  }
+
+  /**
+   * Records a sort.  Sorts in natural or reverse order are replayed; any other
+   * order is recorded as the sorted contents.
+   */
+  private void logSort(Comparator<? super E> comp)
+  {
+	  if (comp == null || comp instanceof StoutList.ElementComparator || comp == Comparator.naturalOrder()) {
+		  begin(SORT, 0);
+		  end();
+	  } else if (comp == Comparator.reverseOrder()) {
+		  begin(SORT_REVERSE, 0);
+		  end();
+	  } else {
+		  logContents();
+	  }
+  }
+
+  /**
+   * Records the removal of the elements from fromIndex, inclusive, to
+   * toIndex, exclusive, as whichever is shorter: the removals or what is left.
+   */
+  private void logRemoved(int fromIndex, int toIndex)
+  {
+	  if (toIndex - fromIndex > size()) {
+		  logContents();
+	  } else {
+		  for (int pos = fromIndex; pos < toIndex; pos++)
+			  logAt(REMOVE, fromIndex, null);
+	  }
+  }
+
+  /**
+   * Records the whole contents of the list.
+   */
+  @SuppressWarnings("unchecked")
+  private void logContents()
+  {
+	  E[] arr = (E[]) new Comparable[size()];
+	  int k = 0;
+	  for (Iterator<E> iter = super.listIterator(0); iter.hasNext(); )
+		  arr[k++] = iter.next();
+	  logElements(CONTENTS, arr);
+  }
+
+  /**
+   * Records an operation on a position, with an element unless item is null.
+   */
+  private void logAt(byte type, int pos, E item)
+  {
+	  begin(type, Integer.BYTES + (item == null ? 0 : codec.width()));
+	  buf.putInt(pos);
+	  if (item != null)
+		  put(item);
+	  end();
+  }
+
+  /**
+   * Records an operation taking an array of elements.
+   */
+  private void logElements(byte type, E[] items)
+  {
+	  begin(type, Integer.BYTES + items.length * codec.width());
+	  buf.putInt(items.length);
+	  for (E item : items)
+		  put(item);
+	  end();
+  }
+
+  /**
+   * Starts a record with the given payload size after the type, making room
+   * for it in the buffer.
+   */
+  private void begin(byte type, int payload)
+  {
+	  int need = RECORD_HEADER + 1 + payload;
+	  if (buf.remaining() < need) {
+		  try {
+			  write();
+		  } catch (IOException e) {
+			  throw new UncheckedIOException(e);
+		  }
+		  if (buf.capacity() < need)
+			  buf = ByteBuffer.allocate(need).order(MappedStoutList.ORDER);
+	  }
+	  recordStart = buf.position();
+	  buf.position(recordStart + RECORD_HEADER);
+	  buf.put(type);
+  }
+
+  /**
+   * Encodes an element at the end of the record being built.
+   */
+  private void put(E item)
+  {
+	  codec.encode(item, buf, buf.position());
+	  buf.position(buf.position() + codec.width());
+  }
+
+  /**
+   * Fills in the length and checksum of the record being built and commits
+   * the group if the policy says so.
+   */
+  private void end()
+  {
+	  int length = buf.position() - recordStart - RECORD_HEADER;
+	  crc.reset();
+	  crc.update(buf.array(), recordStart + RECORD_HEADER, length);
+	  buf.putInt(recordStart, length);
+	  buf.putInt(recordStart + Integer.BYTES, (int) crc.getValue());
+
+	  long now = System.nanoTime();
+	  if (pending++ == 0)
+		  pendingSince = now;
+	  try {
+		  if (policy == FsyncPolicy.ALWAYS)
+			  commit(true);
+		  else if (pending >= maxGroupRecords || now - pendingSince >= maxGroupDelay)
+			  commit(policy == FsyncPolicy.GROUP_COMMIT);
+	  } catch (IOException e) {
+		  throw new UncheckedIOException(e);
+	  }
+  }
+
+  /**
+   * Writes the pending records to the journal, forcing them if asked to.
+   */
+  private void commit(boolean force) throws IOException
+  {
+	  write();
+	  if (force)
+		  journal.force(false);
+	  pending = 0;
+  }
+
+  /**
+   * Writes out the buffer and clears it.
+   */
+  private void write() throws IOException
+  {
+	  buf.flip();
+	  while (buf.hasRemaining())
+		  journal.write(buf);
+	  buf.clear();
+  }
+
+  /**
+   * Loads the latest checkpoint, replays its journal, cuts off a torn record
+   * at the end of the journal and deletes the files of older generations.
+   */
+  @SuppressWarnings("unchecked")
+  private void recover() throws IOException
+  {
+	  Files.createDirectories(dir);
+	  long latest = -1;
+	  try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "checkpoint-*.bin")) {
+		  for (Path file : files)
+			  latest = Math.max(latest, generationOf(file));
+	  }
+	  generation = Math.max(latest, 0);
+	  if (latest >= 0) {
+		  MappedStoutList<E> checkpoint = MappedStoutList.open(checkpoint(latest), codec);
+		  reload(checkpoint.toArray((E[]) new Comparable[checkpoint.size()]));
+	  }
+
+	  long valid = 0;
+	  if (Files.exists(journal(generation))) {
+		  try (FileChannel channel = FileChannel.open(journal(generation), StandardOpenOption.READ)) {
+			  valid = replay(channel);
+		  }
+	  }
+	  journal = FileChannel.open(journal(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+	  journal.truncate(valid);
+	  journal.position(valid);
+
+	  try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "{checkpoint,journal}-*")) {
+		  for (Path file : files) {
+			  if (file.toString().endsWith(".tmp") || generationOf(file) < generation)
+				  Files.delete(file);
+		  }
+	  }
+  }
+
+  /**
+   * Applies the records of a journal to the list, loading runs of appended
+   * elements in bulk.
+   *
+   * @return length of the valid prefix of the journal
+   */
+  @SuppressWarnings("unchecked")
+  private long replay(FileChannel channel) throws IOException
+  {
+	  ByteBuffer in = ByteBuffer.allocate(1 << 16).order(MappedStoutList.ORDER);
+	  in.flip();
+	  List<E> appended = new ArrayList<>();
+	  long valid = 0;
+
+	  while (true) {
+		  in = request(channel, in, RECORD_HEADER);
+		  if (in.remaining() < RECORD_HEADER)
+			  break;
+		  int length = in.getInt(in.position());
+		  int sum = in.getInt(in.position() + Integer.BYTES);
+		  if (length <= 0 || length > MAX_RECORD)
+			  break;
+		  in = request(channel, in, RECORD_HEADER + length);
+		  if (in.remaining() < RECORD_HEADER + length)
+			  break;
+		  crc.reset();
+		  crc.update(in.array(), in.position() + RECORD_HEADER, length);
+		  if ((int) crc.getValue() != sum)
+			  break;
+
+		  ByteBuffer record = in.slice(in.position() + RECORD_HEADER, length).order(MappedStoutList.ORDER);
+		  byte type = record.get(0);
+		  if (type != ADD && !appended.isEmpty()) {
+			  super.addAll(appended);
+			  appended.clear();
+		  }
+		  switch (type) {
+		  case ADD:
+			  appended.add(codec.decode(record, 1));
+			  break;
+		  case INSERT:
+			  add(record.getInt(1), codec.decode(record, 5));
+			  break;
+		  case REMOVE:
+			  remove(record.getInt(1));
+			  break;
+		  case SET:
+			  set(record.getInt(1), codec.decode(record, 5));
+			  break;
+		  case SORT:
+			  sort();
+			  break;
+		  case SORT_REVERSE:
+			  sortReverse();
+			  break;
+		  case ADD_ALL:
+		  case CONTENTS:
+			  E[] items = (E[]) new Comparable[record.getInt(1)];
+			  for (int i = 0; i < items.length; i++)
+				  items[i] = codec.decode(record, 5 + i * codec.width());
+			  if (type == ADD_ALL)
+				  addAll(List.of(items));
+			  else
+				  reload(items);
+			  break;
+		  default:
+			  throw new IOException("Unknown journal record type " + type + " in " + journal(generation));
+		  }
+		  in.position(in.position() + RECORD_HEADER + length);
+		  valid += RECORD_HEADER + length;
+	  }
+	  if (!appended.isEmpty())
+		  super.addAll(appended);
+	  return valid;
+  }
+
+  /**
+   * Reads from the channel until the buffer holds at least n bytes or the end
+   * of the channel is reached, growing the buffer if needed.
+   *
+   * @return the buffer, or a larger one holding the same bytes
+   */
+  private static ByteBuffer request(FileChannel channel, ByteBuffer in, int n) throws IOException
+  {
+	  if (in.remaining() >= n)
+		  return in;
+	  if (in.capacity() < n)
+		  in = ByteBuffer.allocate(n).order(MappedStoutList.ORDER).put(in);
+	  else
+		  in.compact();
+	  while (in.position() < n && channel.read(in) >= 0)
+		  ;
+	  in.flip();
+	  return in;
+  }
+
+  private Path checkpoint(long generation)
+  {
+	  return dir.resolve("checkpoint-" + generation + ".bin");
+  }
+
+  private Path journal(long generation)
+  {
+	  return dir.resolve("journal-" + generation + ".log");
+  }
+
+  /**
+   * Returns the generation in the name of a checkpoint or journal file.
+   */
+  private static long generationOf(Path file)
+  {
+	  String name = file.getFileName().toString();
+	  return Long.parseLong(name.substring(name.indexOf('-') + 1, name.indexOf('.')));
+  }
+
+  /**
+   * List iterator recording the mutations made through it.
+   */
+  private class JournalingIterator implements ListIterator<E>
+  {
+	  private final ListIterator<E> iter;
+
+	  /**
+	   * Position of the element last returned, or -1 if there is none.
+	   */
+	  private int last = -1;
+
+	  JournalingIterator(ListIterator<E> iter)
+	  {
+		  this.iter = iter;
+	  }
+
+	  @Override
+	  public boolean hasNext()
+	  {
+		  return iter.hasNext();
+	  }
+
+	  @Override
+	  public E next()
+	  {
+		  E item = iter.next();
+		  last = iter.previousIndex();
+		  return item;
+	  }
+
+	  @Override
+	  public boolean hasPrevious()
+	  {
+		  return iter.hasPrevious();
+	  }
+
+	  @Override
+	  public E previous()
+	  {
+		  E item = iter.previous();
+		  last = iter.nextIndex();
+		  return item;
+	  }
+
+	  @Override
+	  public int nextIndex()
+	  {
+		  return iter.nextIndex();
+	  }
+
+	  @Override
+	  public int previousIndex()
+	  {
+		  return iter.previousIndex();
+	  }
+
+	  @Override
+	  public void remove()
+	  {
+		  iter.remove();
+		  if (logging)
+			  logAt(REMOVE, last, null);
+		  last = -1;
+	  }
+
+	  @Override
+	  public void set(E item)
+	  {
+		  iter.set(item);
+		  if (logging)
+			  logAt(SET, last, item);
+	  }
+
+	  @Override
+	  public void add(E item)
+	  {
+		  int pos = iter.nextIndex();
+		  iter.add(item);
+		  if (logging)
+			  logAt(INSERT, pos, item);
+		  last = -1;
+	  }
+  }
+}
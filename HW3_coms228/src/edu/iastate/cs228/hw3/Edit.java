@@ -0,0 +1,100 @@
+package edu.iastate.cs228.hw3;
+
+/**
+ * Positional change to a list, for StoutList.applyBatch().  The position of
+ * each edit in a batch refers to the list as the edits before it have left
+ * it, as if the edits were applied one by one.
+ *
+ * @param <E> type of the elements
+ */
+public final class Edit<E>
+{
+	/**
+	 * Kind of change.
+	 */
+	public enum Op
+	{
+		/**
+		 * Adds an element at the position, like add(int, E).
+		 */
+		INSERT,
+
+		/**
+		 * Removes the element at the position, like remove(int).
+		 */
+		REMOVE,
+
+		/**
+		 * Replaces the element at the position, like set(int, E).
+		 */
+		SET
+	}
+
+	private final Op op;
+	private final int pos;
+	private final E item;
+
+	private Edit(Op op, int pos, E item)
+	{
+		this.op = op;
+		this.pos = pos;
+		this.item = item;
+	}
+
+	/**
+	 * Returns an edit that adds an element at the given position.
+	 * @param pos position of the new element
+	 * @param item element to be added
+	 */
+	public static <E> Edit<E> insert(int pos, E item)
+	{
+		if (item == null)
+			throw new NullPointerException();
+		return new Edit<>(Op.INSERT, pos, item);
+	}
+
+	/**
+	 * Returns an edit that removes the element at the given position.
+	 * @param pos position of the element
+	 */
+	public static <E> Edit<E> remove(int pos)
+	{
+		return new Edit<>(Op.REMOVE, pos, null);
+	}
+
+	/**
+	 * Returns an edit that replaces the element at the given position.
+	 * @param pos position of the element
+	 * @param item element to be stored
+	 */
+	public static <E> Edit<E> set(int pos, E item)
+	{
+		if (item == null)
+			throw new NullPointerException();
+		return new Edit<>(Op.SET, pos, item);
+	}
+
+	public Op op()
+	{
+		return op;
+	}
+
+	public int pos()
+	{
+		return pos;
+	}
+
+	/**
+	 * Returns the element added or stored, or null for a removal.
+	 */
+	public E item()
+	{
+		return item;
+	}
+
+	@Override
+	public String toString()
+	{
+		return op + "(" + pos + (item == null ? "" : ", " + item) + ")";
+	}
+}
@@ -0,0 +1,103 @@
+package edu.iastate.cs228.hw3;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes elements of a list as fixed-width byte records, so that they can be
+ * kept outside the Java heap.  Codecs use the absolute get and put methods of
+ * the buffer and its byte order, and keep no state of their own.
+ *
+ * @param <E> type of the encoded elements
+ */
+public interface ElementCodec<E>
+{
+	/**
+	 * Codec for Integer elements as 4-byte ints.
+	 */
+	ElementCodec<Integer> INT = new ElementCodec<Integer>() {
+		@Override
+		public int width()
+		{
+			return Integer.BYTES;
+		}
+
+		@Override
+		public void encode(Integer item, ByteBuffer buf, int index)
+		{
+			buf.putInt(index, item);
+		}
+
+		@Override
+		public Integer decode(ByteBuffer buf, int index)
+		{
+			return buf.getInt(index);
+		}
+	};
+
+	/**
+	 * Codec for Long elements as 8-byte longs.
+	 */
+	ElementCodec<Long> LONG = new ElementCodec<Long>() {
+		@Override
+		public int width()
+		{
+			return Long.BYTES;
+		}
+
+		@Override
+		public void encode(Long item, ByteBuffer buf, int index)
+		{
+			buf.putLong(index, item);
+		}
+
+		@Override
+		public Long decode(ByteBuffer buf, int index)
+		{
+			return buf.getLong(index);
+		}
+	};
+
+	/**
+	 * Codec for Double elements as 8-byte doubles.
+	 */
+	ElementCodec<Double> DOUBLE = new ElementCodec<Double>() {
+		@Override
+		public int width()
+		{
+			return Double.BYTES;
+		}
+
+		@Override
+		public void encode(Double item, ByteBuffer buf, int index)
+		{
+			buf.putDouble(index, item);
+		}
+
+		@Override
+		public Double decode(ByteBuffer buf, int index)
+		{
+			return buf.getDouble(index);
+		}
+	};
+
+	/**
+	 * Returns the number of bytes taken by every encoded element.
+	 */
+	int width();
+
+	/**
+	 * Writes an element into width() bytes of the buffer.
+	 * @param item element to be encoded, not null
+	 * @param buf buffer receiving the record
+	 * @param index position of the first byte of the record
+	 */
+	void encode(E item, ByteBuffer buf, int index);
+
+	/**
+	 * Reads an element from width() bytes of the buffer.
+	 * @param buf buffer holding the record
+	 * @param index position of the first byte of the record
+	 * @return the decoded element
+	 */
+	E decode(ByteBuffer buf, int index);
+}
@@ -0,0 +1,555 @@
+package edu.iastate.cs228.hw3;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Variant of StoutList that stores long values directly in long[] nodes, so no
+ * element is boxed.  Nodes are split and merged by the same rules as in
+ * StoutList, and every node except possibly the last one is at least half full.
+ * 
+ * Unlike StoutList.add(E), addLong(long) appends without a duplicate check, and
+ * positions are located by walking the nodes from the nearer end of the list.
+ * The accessors and the iterator do not allocate.
+ */
+public class LongStoutList implements Iterable<Long>
+{
+  /**
+   * Default number of elements that may be stored in each node.
+   */
+  private static final int DEFAULT_NODESIZE = 4;
+  
+  /**
+   * Number of elements that can be stored in each node.
+   */
+  private final int nodeSize;
+  
+  /**
+   * Dummy node for head.  It should be private but set to public here only  
+   * for grading purpose.  In practice, you should always make the head of a 
+   * linked list a private instance variable.  
+   */
+  public Node head;
+  
+  /**
+   * Dummy node for tail.
+   */
+  private Node tail;
+  
+  /**
+   * Number of elements in the list.
+   */
+  private int size;
+  
+  /**
+   * Number of structural modifications, used by iterators to fail fast.
+   */
+  private int modCount;
+  
+  /**
+   * Result holder reused by find(), removeAt() and insertAt() so that they do
+   * not allocate.
+   */
+  private final NodeInfo found = new NodeInfo();
+  
+  /**
+   * Constructs an empty list with the default node size.
+   */
+  public LongStoutList()
+  {
+    this(DEFAULT_NODESIZE);
+  }
+  
+  /**
+   * Constructs an empty list with the given node size.
+   * @param nodeSize number of elements that may be stored in each node, must be 
+   *   an even number
+   */
+  public LongStoutList(int nodeSize)
+  {
+    if (nodeSize <= 0 || nodeSize % 2 != 0)
+    	throw new IllegalArgumentException();
+    
+    // Initialize dummy nodes
+    this.nodeSize = nodeSize;
+    head = new Node();
+    tail = new Node();
+    head.next = tail;
+    tail.previous = head;
+  }
+  
+  /**
+   * Returns the number of elements in the list.
+   */
+  public int size()
+  {
+	  return size;
+  }
+  
+  /**
+   * Returns whether the list has no elements.
+   */
+  public boolean isEmpty()
+  {
+	  return size == 0;
+  }
+  
+  /**
+   * Appends an element to the end of the list, putting it in a new node if
+   * the last one is full.
+   * @param item element to be added
+   */
+  public void addLong(long item)
+  {
+	  Node last = tail.previous;
+	  if (last == head || last.count == nodeSize) {
+		  last = new Node();
+		  link(tail.previous, last);
+	  }
+	  last.data[last.count++] = item;
+	  size++;
+	  modCount++;
+  }
+  
+  /**
+   * Inserts an element at the given position, splitting a full node as in
+   * StoutList.add(int, E).
+   * @param pos position of the new element
+   * @param item element to be added
+   * @throws IndexOutOfBoundsException if pos is not in 0..size()
+   */
+  public void addLong(int pos, long item)
+  {
+	  if (pos < 0 || pos > size)
+		  throw new IndexOutOfBoundsException();
+	  NodeInfo nodeInfo = find(pos);
+	  insertAt(nodeInfo.node, nodeInfo.off, item);
+  }
+  
+  /**
+   * Returns the element at the given position.
+   * @param pos position of the element
+   * @throws IndexOutOfBoundsException if pos is not in 0..size()-1
+   */
+  public long getLong(int pos)
+  {
+	  if (pos < 0 || pos >= size)
+		  throw new IndexOutOfBoundsException();
+	  NodeInfo nodeInfo = find(pos);
+	  return nodeInfo.node.data[nodeInfo.off];
+  }
+  
+  /**
+   * Replaces the element at the given position.
+   * @param pos position of the element
+   * @param item new element
+   * @return the element previously at pos
+   * @throws IndexOutOfBoundsException if pos is not in 0..size()-1
+   */
+  public long setLong(int pos, long item)
+  {
+	  if (pos < 0 || pos >= size)
+		  throw new IndexOutOfBoundsException();
+	  NodeInfo nodeInfo = find(pos);
+	  long old = nodeInfo.node.data[nodeInfo.off];
+	  nodeInfo.node.data[nodeInfo.off] = item;
+	  return old;
+  }
+  
+  /**
+   * Removes the element at the given position, borrowing from or merging with
+   * the next node as in StoutList.remove(int).
+   * @param pos position of the element
+   * @return the removed element
+   * @throws IndexOutOfBoundsException if pos is not in 0..size()-1
+   */
+  public long removeAt(int pos)
+  {
+	  if (pos < 0 || pos >= size)
+		  throw new IndexOutOfBoundsException();
+	  NodeInfo nodeInfo = find(pos);
+	  return removeAt(nodeInfo.node, nodeInfo.off);
+  }
+  
+  /**
+   * Returns whether the list holds the given element.
+   */
+  public boolean contains(long item)
+  {
+	  return indexOf(item) >= 0;
+  }
+  
+  /**
+   * Returns the position of the first occurrence of the given element, or -1
+   * if there is none.
+   */
+  public int indexOf(long item)
+  {
+	  int start = 0;
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  for (int i = 0; i < temp.count; i++) {
+			  if (temp.data[i] == item)
+				  return start + i;
+		  }
+		  start += temp.count;
+	  }
+	  return -1;
+  }
+  
+  /**
+   * Sorts the list in non-decreasing order and packs the elements into full nodes.
+   */
+  public void sort()
+  {
+	  long[] arr = toArray();
+	  Arrays.sort(arr);
+	  
+	  // Refill the list with full nodes
+	  head.next = tail;
+	  tail.previous = head;
+	  for (int from = 0; from < arr.length; from += nodeSize) {
+		  Node node = new Node();
+		  node.count = Math.min(nodeSize, arr.length - from);
+		  System.arraycopy(arr, from, node.data, 0, node.count);
+		  link(tail.previous, node);
+	  }
+	  modCount++;
+  }
+  
+  /**
+   * Returns the elements of the list in order in a new array.
+   */
+  public long[] toArray()
+  {
+	  long[] arr = new long[size];
+	  int k = 0;
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  System.arraycopy(temp.data, 0, arr, k, temp.count);
+		  k += temp.count;
+	  }
+	  return arr;
+  }
+  
+  /**
+   * Returns an iterator over the elements that supports removal.  Its
+   * nextLong() does not box.
+   */
+  @Override
+  public PrimitiveIterator.OfLong iterator()
+  {
+	  return new LongStoutListIterator();
+  }
+  
+  @Override
+  public String toString()
+  {
+	  StringBuilder sb = new StringBuilder();
+	  sb.append('[');
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  for (int i = 0; i < temp.count; i++) {
+			  if (sb.length() > 1)
+				  sb.append(", ");
+			  sb.append(temp.data[i]);
+		  }
+	  }
+	  return sb.append(']').toString();
+  }
+  
+  /**
+   * Returns a string representation of this list showing the internal
+   * structure of the nodes, with empty slots shown as "-".
+   */
+  public String toStringInternal()
+  {
+	  StringBuilder sb = new StringBuilder();
+	  sb.append('[');
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  sb.append('(');
+		  for (int i = 0; i < nodeSize; i++) {
+			  if (i > 0)
+				  sb.append(", ");
+			  if (i < temp.count)
+				  sb.append(temp.data[i]);
+			  else
+				  sb.append('-');
+		  }
+		  sb.append(')');
+		  if (temp.next != tail)
+			  sb.append(", ");
+	  }
+	  return sb.append(']').toString();
+  }
+  
+  /**
+   * Inserts an element at the given node and offset.  On return, found holds
+   * the node and offset where the element ended up.
+   * 
+   * @param temp node holding the element at the insertion position, or the tail
+   * @param offset offset of that element within the node
+   * @param item element to be added
+   */
+  private void insertAt(Node temp, int offset, long item)
+  {
+	  modCount++;
+	  size++;
+	  
+	  // At the start of a node, prefer the end of the previous node
+	  if (offset == 0) {
+		  if (temp.previous != head && temp.previous.count < nodeSize) {
+			  Node pred = temp.previous;
+			  pred.data[pred.count] = item;
+			  found.node = pred;
+			  found.off = pred.count++;
+			  return;
+		  } else if (temp == tail) {
+			  Node node = new Node();
+			  node.data[node.count++] = item;
+			  link(tail.previous, node);
+			  found.node = node;
+			  found.off = 0;
+			  return;
+		  }
+	  }
+	  
+	  // Split a full node, moving its second half into a new successor
+	  if (temp.count == nodeSize) {
+		  int half = nodeSize / 2;
+		  Node succesor = new Node();
+		  System.arraycopy(temp.data, half, succesor.data, 0, half);
+		  succesor.count = half;
+		  temp.count = half;
+		  link(temp, succesor);
+		  if (offset > half) {
+			  temp = succesor;
+			  offset -= half;
+		  }
+	  }
+	  
+	  System.arraycopy(temp.data, offset, temp.data, offset + 1, temp.count - offset);
+	  temp.data[offset] = item;
+	  temp.count++;
+	  found.node = temp;
+	  found.off = offset;
+  }
+  
+  /**
+   * Removes the element at the given node and offset, borrowing from or
+   * merging with the successor to keep the node at least half full.  On
+   * return, found holds the node and offset of the element that followed
+   * the removed one (the tail if there is none).
+   * 
+   * @param temp node holding the element
+   * @param offset offset of the element within the node
+   * @return the removed element
+   */
+  private long removeAt(Node temp, int offset)
+  {
+	  long item = temp.data[offset];
+	  modCount++;
+	  size--;
+	  found.node = temp;
+	  found.off = offset;
+	  
+	  System.arraycopy(temp.data, offset + 1, temp.data, offset, temp.count - offset - 1);
+	  temp.count--;
+	  
+	  if (temp.count == 0) {
+		  // A node emptied with nodeSize 2 is dropped; its successor, if any,
+		  // still holds at least half of nodeSize elements
+		  found.node = temp.next;
+		  found.off = 0;
+		  unlink(temp);
+	  } else if (temp.next != tail && temp.count < nodeSize / 2) {
+		  Node succesor = temp.next;
+		  if (succesor.count > nodeSize / 2) {
+			  // Borrow the first element of the successor
+			  temp.data[temp.count++] = succesor.data[0];
+			  System.arraycopy(succesor.data, 1, succesor.data, 0, --succesor.count);
+		  } else {
+			  // Merge the successor into this node
+			  System.arraycopy(succesor.data, 0, temp.data, temp.count, succesor.count);
+			  temp.count += succesor.count;
+			  unlink(succesor);
+		  }
+	  }
+	  
+	  // The following element may now be the first one of the next node
+	  if (found.node != tail && found.off == found.node.count) {
+		  found.node = found.node.next;
+		  found.off = 0;
+	  }
+	  return item;
+  }
+  
+  /**
+   * Finds the node and offset of the element at the given position, walking
+   * from whichever end of the list is nearer.  A position equal to size()
+   * yields the tail with offset 0.  The returned NodeInfo is shared by all
+   * calls, so it is only valid until the next lookup.
+   * 
+   * @param pos position in the list
+   * @return node and offset of the element
+   */
+  private NodeInfo find(int pos)
+  {
+	  Node temp;
+	  if (pos >= size) {
+		  temp = tail;
+		  pos = 0;
+	  } else if (pos < size / 2) {
+		  temp = head.next;
+		  while (pos >= temp.count) {
+			  pos -= temp.count;
+			  temp = temp.next;
+		  }
+	  } else {
+		  // Count back from the end of the list
+		  pos -= size;
+		  temp = tail.previous;
+		  while (pos < -temp.count) {
+			  pos += temp.count;
+			  temp = temp.previous;
+		  }
+		  pos += temp.count;
+	  }
+	  found.node = temp;
+	  found.off = pos;
+	  return found;
+  }
+  
+  /**
+   * Inserts a node into the chain right after the given node.
+   */
+  private void link(Node prev, Node node)
+  {
+	  node.previous = prev;
+	  node.next = prev.next;
+	  prev.next.previous = node;
+	  prev.next = node;
+  }
+  
+  /**
+   * Removes a node from the chain.
+   */
+  private void unlink(Node node)
+  {
+	  node.previous.next = node.next;
+	  node.next.previous = node.previous;
+	  node.next = null;
+	  node.previous = null;
+  }
+  
+  /**
+   * Node type for this list.  Each node holds a maximum of nodeSize elements
+   * in an array; the slots at count and beyond are unused.
+   */
+  private class Node
+  {
+	  /**
+	   * Array of actual data elements.
+	   */
+	  public long[] data = new long[nodeSize];
+	  
+	  /**
+	   * Link to next node.
+	   */
+	  public Node next;
+	  
+	  /**
+	   * Link to previous node.
+	   */
+	  public Node previous;
+	  
+	  /**
+	   * Number of elements in this node.
+	   */
+	  public int count;
+  }
+  
+  /**
+   * Result of find(): a node and an offset within it.
+   */
+  private class NodeInfo
+  {
+	  public Node node;
+	  
+	  public int off;
+  }
+  
+  /**
+   * Forward iterator keeping a cursor on the node and offset of the next
+   * element.
+   */
+  private class LongStoutListIterator implements PrimitiveIterator.OfLong
+  {
+	  /**
+	   * Node holding the next element, or the tail at the end of the list.
+	   */
+	  private Node node = head.next;
+	  
+	  /**
+	   * Offset of the next element within node.
+	   */
+	  private int offset;
+	  
+	  /**
+	   * Number of elements returned so far.
+	   */
+	  private int position;
+	  
+	  /**
+	   * Whether remove() may be called.
+	   */
+	  private boolean canRemove;
+	  
+	  /**
+	   * Value of modCount the iterator expects.
+	   */
+	  private int expectedModCount = modCount;
+	  
+	  @Override
+	  public boolean hasNext()
+	  {
+		  return position < size;
+	  }
+	  
+	  @Override
+	  public long nextLong()
+	  {
+		  if (modCount != expectedModCount)
+			  throw new ConcurrentModificationException();
+		  if (position >= size)
+			  throw new NoSuchElementException();
+		  long item = node.data[offset++];
+		  if (offset == node.count) {
+			  node = node.next;
+			  offset = 0;
+		  }
+		  position++;
+		  canRemove = true;
+		  return item;
+	  }
+	  
+	  @Override
+	  public void remove()
+	  {
+		  if (modCount != expectedModCount)
+			  throw new ConcurrentModificationException();
+		  if (!canRemove)
+			  throw new IllegalStateException();
+		  
+		  // The element just returned sits right before the cursor
+		  if (offset == 0)
+			  removeAt(node.previous, node.previous.count - 1);
+		  else
+			  removeAt(node, offset - 1);
+		  node = found.node;
+		  offset = found.off;
+		  position--;
+		  expectedModCount = modCount;
+		  canRemove = false;
+	  }
+  }
+}
@@ -0,0 +1,204 @@
+package edu.iastate.cs228.hw3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list over a file written by StoutList.writeTo().  The file is
+ * mapped into memory when the list is opened and elements are decoded only
+ * when they are accessed, so opening takes a single map call plus one pass
+ * over the node counts.  The list never changes, so it may be read by many
+ * threads at once.  A mutable copy can be made with new StoutList&lt;&gt;(list,
+ * nodeSize), which bulk-loads the elements.
+ *
+ * The file holds, in little-endian byte order, a header of six ints (MAGIC,
+ * VERSION, nodeSize, element width, number of nodes, number of elements)
+ * followed by one record per node: an int count and count encoded elements.
+ *
+ * @param <E> type of the elements
+ */
+public class MappedStoutList<E> extends AbstractList<E> implements RandomAccess
+{
+  /**
+   * First int of every file.
+   */
+  static final int MAGIC = 0x53544F55;
+
+  /**
+   * Version of the file format written by StoutList.writeTo().
+   */
+  static final int VERSION = 1;
+
+  /**
+   * Number of bytes in the file header.
+   */
+  static final int HEADER = 24;
+
+  /**
+   * Byte order of the file.
+   */
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  /**
+   * Codec used to decode the elements.
+   */
+  private final ElementCodec<E> codec;
+
+  /**
+   * Mapped contents of the file.
+   */
+  private final ByteBuffer buf;
+
+  /**
+   * Node size of the list that was written.
+   */
+  private final int nodeSize;
+
+  /**
+   * Bytes taken by an encoded element.
+   */
+  private final int width;
+
+  /**
+   * List position of the first element of each node, followed by the size.
+   */
+  private final int[] starts;
+
+  private MappedStoutList(ElementCodec<E> codec, ByteBuffer buf, int nodeSize, int[] starts)
+  {
+	  this.codec = codec;
+	  this.buf = buf;
+	  this.nodeSize = nodeSize;
+	  this.width = codec.width();
+	  this.starts = starts;
+  }
+
+  /**
+   * Maps a file written by StoutList.writeTo() and checks its structure.
+   *
+   * @param file file to be mapped
+   * @param codec codec the file was written with
+   * @return read-only list of the elements in the file
+   * @throws IOException if the file cannot be read, is not a list file of
+   *   this version, or is corrupt
+   */
+  public static <E> MappedStoutList<E> open(Path file, ElementCodec<E> codec) throws IOException
+  {
+	  ByteBuffer buf;
+	  try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+		  if (channel.size() > Integer.MAX_VALUE)
+			  throw new IOException("File too large to map: " + file);
+		  buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ORDER);
+	  }
+
+	  if (buf.limit() < HEADER || buf.getInt(0) != MAGIC)
+		  throw new IOException("Not a StoutList file: " + file);
+	  if (buf.getInt(4) != VERSION)
+		  throw new IOException("Unsupported StoutList file version " + buf.getInt(4) + ": " + file);
+	  int nodeSize = buf.getInt(8);
+	  int width = buf.getInt(12);
+	  int nodeCount = buf.getInt(16);
+	  int size = buf.getInt(20);
+	  if (width != codec.width())
+		  throw new IOException("Element width " + width + " does not match the codec: " + file);
+	  if (nodeSize <= 0 || nodeCount < 0 || size < 0)
+		  throw new IOException("Corrupt StoutList file: " + file);
+
+	  // Every node record takes at least a count, so a header claiming more
+	  // nodes or elements than the file can hold is rejected before the
+	  // starts array is sized from it
+	  if (nodeCount > (buf.limit() - HEADER) / Integer.BYTES || size > (long) nodeCount * nodeSize)
+		  throw new IOException("Corrupt StoutList file: " + file);
+
+	  // Walk the node counts, checking that every record lies within the file
+	  int[] starts = new int[nodeCount + 1];
+	  long offset = HEADER;
+	  for (int k = 0; k < nodeCount; k++) {
+		  int count = offset + Integer.BYTES <= buf.limit() ? buf.getInt((int) offset) : -1;
+		  if (count <= 0 || count > nodeSize)
+			  throw new IOException("Corrupt StoutList file: " + file);
+		  starts[k + 1] = starts[k] + count;
+		  offset += Integer.BYTES + (long) count * width;
+	  }
+	  if (offset != buf.limit() || starts[nodeCount] != size)
+		  throw new IOException("Corrupt StoutList file: " + file);
+
+	  return new MappedStoutList<>(codec, buf, nodeSize, starts);
+  }
+
+  /**
+   * Returns the node size of the list that was written.
+   */
+  public int nodeSize()
+  {
+	  return nodeSize;
+  }
+
+  @Override
+  public int size()
+  {
+	  return starts[starts.length - 1];
+  }
+
+  @Override
+  public E get(int pos)
+  {
+	  if (pos < 0 || pos >= size())
+		  throw new IndexOutOfBoundsException();
+
+	  // Find the last node starting at or before pos
+	  int lo = 0, hi = starts.length - 2;
+	  while (lo < hi) {
+		  int mid = (lo + hi + 1) >>> 1;
+		  if (starts[mid] <= pos)
+			  lo = mid;
+		  else
+			  hi = mid - 1;
+	  }
+	  return codec.decode(buf, elementOffset(lo, pos - starts[lo]));
+  }
+
+  /**
+   * Returns an iterator that decodes the elements in file order.
+   */
+  @Override
+  public Iterator<E> iterator()
+  {
+	  return new Iterator<E>() {
+		  private int node, position;
+
+		  @Override
+		  public boolean hasNext()
+		  {
+			  return position < size();
+		  }
+
+		  @Override
+		  public E next()
+		  {
+			  if (position >= size())
+				  throw new NoSuchElementException();
+			  while (starts[node + 1] <= position)
+				  node++;
+			  return codec.decode(buf, elementOffset(node, position++ - starts[node]));
+		  }
+	  };
+  }
+
+  /**
+   * Returns the byte offset of an element.  Node k is preceded by k counts and
+   * starts[k] elements.
+   */
+  private int elementOffset(int node, int offset)
+  {
+	  return HEADER + (node + 1) * Integer.BYTES + (starts[node] + offset) * width;
+  }
+}
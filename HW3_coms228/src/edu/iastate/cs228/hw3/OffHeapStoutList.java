@@ -0,0 +1,719 @@
+package edu.iastate.cs228.hw3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractSequentialList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Variant of StoutList that keeps its nodes outside the Java heap.  Every node,
+ * links and count included, is a fixed-size record in a direct ByteBuffer, and
+ * the elements are stored in it as fixed-width records written by an
+ * ElementCodec.  Nodes are referred to by int ids, so the heap only holds one
+ * buffer per slab of nodes, however many elements the list holds.
+ *
+ * Nodes are split and merged by the same rules as in StoutList, and every
+ * node except possibly the last one is at least half full.  Unlike
+ * StoutList.add(E), add(E) appends without a duplicate check, and positions
+ * are located by walking the nodes from the nearer end of the list.  Null
+ * elements are rejected.
+ *
+ * @param <E> type of the elements
+ */
+public class OffHeapStoutList<E> extends AbstractSequentialList<E>
+{
+  /**
+   * Default number of elements that may be stored in each node.
+   */
+  private static final int DEFAULT_NODESIZE = 4;
+
+  /**
+   * Nodes are allocated in slabs of 2^SLAB_SHIFT nodes, each slab being one
+   * direct buffer.
+   */
+  private static final int SLAB_SHIFT = 10;
+
+  /**
+   * Byte offsets of the fields of a node record; the elements follow the header.
+   */
+  private static final int NEXT_FIELD = 0, PREVIOUS_FIELD = 4, COUNT_FIELD = 8, HEADER = 12;
+
+  /**
+   * Ids of the dummy head and tail nodes, which are the first two allocated.
+   */
+  private static final int HEAD = 0, TAIL = 1;
+
+  /**
+   * Id marking the end of the free list.
+   */
+  private static final int NIL = -1;
+
+  /**
+   * Codec used to store the elements.
+   */
+  private final ElementCodec<E> codec;
+
+  /**
+   * Number of elements that can be stored in each node.
+   */
+  private final int nodeSize;
+
+  /**
+   * Bytes taken by an encoded element.
+   */
+  private final int width;
+
+  /**
+   * Bytes taken by a node record, rounded up to a multiple of 8.
+   */
+  private final int stride;
+
+  /**
+   * Slabs of node records; slab i holds the nodes with ids i * 2^SLAB_SHIFT and up.
+   */
+  private ByteBuffer[] slabs;
+
+  /**
+   * Number of node ids handed out so far, free or not.
+   */
+  private int allocated;
+
+  /**
+   * First node of the list of free nodes, chained through their next fields.
+   */
+  private int free;
+
+  /**
+   * Number of elements in the list.
+   */
+  private int size;
+
+  /**
+   * Node and offset found by the last call to find(), insertAt() or removeAt().
+   */
+  private int foundNode, foundOff;
+
+  /**
+   * Constructs an empty list with the default node size.
+   * @param codec codec used to store the elements
+   */
+  public OffHeapStoutList(ElementCodec<E> codec)
+  {
+    this(codec, DEFAULT_NODESIZE);
+  }
+
+  /**
+   * Constructs an empty list with the given node size.
+   * @param codec codec used to store the elements
+   * @param nodeSize number of elements that may be stored in each node, must be
+   *   an even number
+   */
+  public OffHeapStoutList(ElementCodec<E> codec, int nodeSize)
+  {
+    if (nodeSize <= 0 || nodeSize % 2 != 0 || codec.width() <= 0)
+    	throw new IllegalArgumentException();
+    long bytes = HEADER + (long) nodeSize * codec.width();
+    if ((bytes + 7 & ~7L) << SLAB_SHIFT > Integer.MAX_VALUE)
+    	throw new IllegalArgumentException();
+
+    this.codec = codec;
+    this.nodeSize = nodeSize;
+    width = codec.width();
+    stride = (int) (bytes + 7 & ~7L);
+    init();
+  }
+
+  /**
+   * Drops all slabs and allocates the dummy nodes of an empty list.
+   */
+  private void init()
+  {
+	  slabs = new ByteBuffer[1];
+	  allocated = 0;
+	  free = NIL;
+	  size = 0;
+	  newNode();
+	  newNode();
+	  setNext(HEAD, TAIL);
+	  setPrevious(TAIL, HEAD);
+  }
+
+  @Override
+  public int size()
+  {
+	  return size;
+  }
+
+  /**
+   * Appends an element to the end of the list, putting it in a new node if
+   * the last one is full.
+   * @param item element to be added
+   * @return true
+   */
+  @Override
+  public boolean add(E item)
+  {
+	  if (item == null)
+		  throw new NullPointerException();
+	  int last = previous(TAIL);
+	  if (last == HEAD || count(last) == nodeSize) {
+		  int node = newNode();
+		  link(last, node);
+		  last = node;
+	  }
+	  int count = count(last);
+	  write(last, count, item);
+	  setCount(last, count + 1);
+	  size++;
+	  modCount++;
+	  return true;
+  }
+
+  @Override
+  public void add(int pos, E item)
+  {
+	  if (item == null)
+		  throw new NullPointerException();
+	  if (pos < 0 || pos > size)
+		  throw new IndexOutOfBoundsException();
+	  find(pos);
+	  insertAt(foundNode, foundOff, item);
+  }
+
+  @Override
+  public E get(int pos)
+  {
+	  if (pos < 0 || pos >= size)
+		  throw new IndexOutOfBoundsException();
+	  find(pos);
+	  return read(foundNode, foundOff);
+  }
+
+  @Override
+  public E set(int pos, E item)
+  {
+	  if (item == null)
+		  throw new NullPointerException();
+	  if (pos < 0 || pos >= size)
+		  throw new IndexOutOfBoundsException();
+	  find(pos);
+	  E old = read(foundNode, foundOff);
+	  write(foundNode, foundOff, item);
+	  return old;
+  }
+
+  @Override
+  public E remove(int pos)
+  {
+	  if (pos < 0 || pos >= size)
+		  throw new IndexOutOfBoundsException();
+	  find(pos);
+	  return removeAt(foundNode, foundOff);
+  }
+
+  /**
+   * Removes all elements and gives the slabs back to the garbage collector.
+   */
+  @Override
+  public void clear()
+  {
+	  init();
+	  modCount++;
+  }
+
+  /**
+   * Returns the number of bytes of direct memory held by the slabs.
+   */
+  public long offHeapBytes()
+  {
+	  long bytes = 0;
+	  for (ByteBuffer slab : slabs) {
+		  if (slab != null)
+			  bytes += slab.capacity();
+	  }
+	  return bytes;
+  }
+
+  @Override
+  public ListIterator<E> listIterator(int index)
+  {
+	  return new OffHeapStoutListIterator(index);
+  }
+
+  /**
+   * Returns a string representation of this list showing the internal
+   * structure of the nodes, with empty slots shown as "-".
+   */
+  public String toStringInternal()
+  {
+	  StringBuilder sb = new StringBuilder();
+	  sb.append('[');
+	  for (int node = next(HEAD); node != TAIL; node = next(node)) {
+		  sb.append('(');
+		  for (int i = 0; i < nodeSize; i++) {
+			  if (i > 0)
+				  sb.append(", ");
+			  if (i < count(node))
+				  sb.append(read(node, i));
+			  else
+				  sb.append('-');
+		  }
+		  sb.append(')');
+		  if (next(node) != TAIL)
+			  sb.append(", ");
+	  }
+	  return sb.append(']').toString();
+  }
+
+  /**
+   * Inserts an element at the given node and offset.  On return, foundNode
+   * and foundOff hold the node and offset where the element ended up.
+   *
+   * @param node node holding the element at the insertion position, or the tail
+   * @param offset offset of that element within the node
+   * @param item element to be added
+   */
+  private void insertAt(int node, int offset, E item)
+  {
+	  modCount++;
+	  size++;
+
+	  // At the start of a node, prefer the end of the previous node
+	  if (offset == 0) {
+		  int pred = previous(node);
+		  if (pred != HEAD && count(pred) < nodeSize) {
+			  int count = count(pred);
+			  write(pred, count, item);
+			  setCount(pred, count + 1);
+			  foundNode = pred;
+			  foundOff = count;
+			  return;
+		  } else if (node == TAIL) {
+			  int last = newNode();
+			  link(pred, last);
+			  write(last, 0, item);
+			  setCount(last, 1);
+			  foundNode = last;
+			  foundOff = 0;
+			  return;
+		  }
+	  }
+
+	  // Split a full node, moving its second half into a new successor
+	  if (count(node) == nodeSize) {
+		  int half = nodeSize / 2;
+		  int succesor = newNode();
+		  copy(node, half, succesor, 0, half);
+		  setCount(succesor, half);
+		  setCount(node, half);
+		  link(node, succesor);
+		  if (offset > half) {
+			  node = succesor;
+			  offset -= half;
+		  }
+	  }
+
+	  int count = count(node);
+	  copy(node, offset, node, offset + 1, count - offset);
+	  write(node, offset, item);
+	  setCount(node, count + 1);
+	  foundNode = node;
+	  foundOff = offset;
+  }
+
+  /**
+   * Removes the element at the given node and offset, borrowing from or
+   * merging with the successor to keep the node at least half full.  On
+   * return, foundNode and foundOff hold the node and offset of the element
+   * that followed the removed one (the tail if there is none).
+   *
+   * @param node node holding the element
+   * @param offset offset of the element within the node
+   * @return the removed element
+   */
+  private E removeAt(int node, int offset)
+  {
+	  E item = read(node, offset);
+	  modCount++;
+	  size--;
+	  foundNode = node;
+	  foundOff = offset;
+
+	  int count = count(node) - 1;
+	  copy(node, offset + 1, node, offset, count - offset);
+	  setCount(node, count);
+
+	  int succesor = next(node);
+	  if (count == 0) {
+		  // A node emptied with nodeSize 2 is dropped; its successor, if any,
+		  // still holds at least half of nodeSize elements
+		  foundNode = succesor;
+		  foundOff = 0;
+		  unlink(node);
+	  } else if (succesor != TAIL && count < nodeSize / 2) {
+		  int succesorCount = count(succesor);
+		  if (succesorCount > nodeSize / 2) {
+			  // Borrow the first element of the successor
+			  copy(succesor, 0, node, count, 1);
+			  setCount(node, count + 1);
+			  copy(succesor, 1, succesor, 0, succesorCount - 1);
+			  setCount(succesor, succesorCount - 1);
+		  } else {
+			  // Merge the successor into this node
+			  copy(succesor, 0, node, count, succesorCount);
+			  setCount(node, count + succesorCount);
+			  unlink(succesor);
+		  }
+	  }
+
+	  // The following element may now be the first one of the next node
+	  if (foundNode != TAIL && foundOff == count(foundNode)) {
+		  foundNode = next(foundNode);
+		  foundOff = 0;
+	  }
+	  return item;
+  }
+
+  /**
+   * Sets foundNode and foundOff to the node and offset of the element at the
+   * given position, walking from whichever end of the list is nearer.  A
+   * position equal to size() yields the tail with offset 0.
+   *
+   * @param pos position in the list
+   */
+  private void find(int pos)
+  {
+	  int node;
+	  if (pos >= size) {
+		  node = TAIL;
+		  pos = 0;
+	  } else if (pos < size / 2) {
+		  node = next(HEAD);
+		  while (pos >= count(node)) {
+			  pos -= count(node);
+			  node = next(node);
+		  }
+	  } else {
+		  // Count back from the end of the list
+		  pos -= size;
+		  node = previous(TAIL);
+		  while (pos < -count(node)) {
+			  pos += count(node);
+			  node = previous(node);
+		  }
+		  pos += count(node);
+	  }
+	  foundNode = node;
+	  foundOff = pos;
+  }
+
+  /**
+   * Inserts a node into the chain right after the given node.
+   */
+  private void link(int prev, int node)
+  {
+	  int next = next(prev);
+	  setPrevious(node, prev);
+	  setNext(node, next);
+	  setPrevious(next, node);
+	  setNext(prev, node);
+  }
+
+  /**
+   * Removes a node from the chain and puts it on the free list.
+   */
+  private void unlink(int node)
+  {
+	  int prev = previous(node);
+	  int next = next(node);
+	  setNext(prev, next);
+	  setPrevious(next, prev);
+	  setNext(node, free);
+	  free = node;
+  }
+
+  /**
+   * Returns an empty node, reusing a free one if there is any.
+   */
+  private int newNode()
+  {
+	  int node;
+	  if (free != NIL) {
+		  node = free;
+		  free = next(node);
+	  } else {
+		  node = allocated++;
+		  int slab = node >>> SLAB_SHIFT;
+		  if (slab == slabs.length)
+			  slabs = Arrays.copyOf(slabs, slabs.length * 2);
+		  if (slabs[slab] == null)
+			  slabs[slab] = ByteBuffer.allocateDirect(stride << SLAB_SHIFT).order(ByteOrder.nativeOrder());
+	  }
+	  setCount(node, 0);
+	  return node;
+  }
+
+  /**
+   * Returns the slab holding a node.
+   */
+  private ByteBuffer slab(int node)
+  {
+	  return slabs[node >>> SLAB_SHIFT];
+  }
+
+  /**
+   * Returns the offset of a node record within its slab.
+   */
+  private int base(int node)
+  {
+	  return (node & (1 << SLAB_SHIFT) - 1) * stride;
+  }
+
+  private int next(int node)
+  {
+	  return slab(node).getInt(base(node) + NEXT_FIELD);
+  }
+
+  private void setNext(int node, int next)
+  {
+	  slab(node).putInt(base(node) + NEXT_FIELD, next);
+  }
+
+  private int previous(int node)
+  {
+	  return slab(node).getInt(base(node) + PREVIOUS_FIELD);
+  }
+
+  private void setPrevious(int node, int previous)
+  {
+	  slab(node).putInt(base(node) + PREVIOUS_FIELD, previous);
+  }
+
+  private int count(int node)
+  {
+	  return slab(node).getInt(base(node) + COUNT_FIELD);
+  }
+
+  private void setCount(int node, int count)
+  {
+	  slab(node).putInt(base(node) + COUNT_FIELD, count);
+  }
+
+  /**
+   * Decodes the element at the given offset of a node.
+   */
+  private E read(int node, int offset)
+  {
+	  return codec.decode(slab(node), base(node) + HEADER + offset * width);
+  }
+
+  /**
+   * Encodes an element at the given offset of a node.
+   */
+  private void write(int node, int offset, E item)
+  {
+	  codec.encode(item, slab(node), base(node) + HEADER + offset * width);
+  }
+
+  /**
+   * Copies n encoded elements between nodes, or within a node; the ranges
+   * may overlap.
+   */
+  private void copy(int src, int srcOffset, int dest, int destOffset, int n)
+  {
+	  slab(dest).put(base(dest) + HEADER + destOffset * width, slab(src), base(src) + HEADER + srcOffset * width, n * width);
+  }
+
+  /**
+   * An iterator for the OffHeapStoutList that allows forward and backward
+   * traversal, as well as modification of the list during iteration.  The
+   * iterator keeps a cursor on the node and offset of the next element.
+   */
+  private class OffHeapStoutListIterator implements ListIterator<E>
+  {
+	/**
+	 * Constants to represent the last action performed by the iterator
+	 */
+	final int PREVIOUS = 0;
+	final int NEXT = 1;
+
+	/**
+	 * Current position of the iterator
+	 */
+	int currentPosition;
+
+	/**
+	 * Node holding the element at currentPosition, or the tail if the
+	 * iterator is at the end of the list
+	 */
+	int node;
+
+	/**
+	 * Offset of the element at currentPosition within node
+	 */
+	int offset;
+
+	/**
+	 * Keeps track of the last action performed (NEXT, PREVIOUS, or -1 if none)
+	 */
+	int lastAction;
+
+	/**
+	 * Value of modCount the iterator expects, used to detect changes made
+	 * to the list behind its back
+	 */
+	int expectedModCount;
+
+	/**
+	 * Constructor finds node at a given position.
+	 * @param pos
+	 */
+	OffHeapStoutListIterator(int pos)
+	{
+		if (pos < 0 || pos > size)
+			throw new IndexOutOfBoundsException();
+		find(pos);
+		node = foundNode;
+		offset = foundOff;
+		currentPosition = pos;
+		lastAction = -1;
+		expectedModCount = modCount;
+	}
+
+	/**
+	 * Moves the cursor to the given node and offset, stepping to the next
+	 * node if the offset is past the last element.
+	 */
+	private void moveTo(int newNode, int newOffset)
+	{
+		if (newNode != TAIL && newOffset == count(newNode)) {
+			newNode = OffHeapStoutList.this.next(newNode);
+			newOffset = 0;
+		}
+		node = newNode;
+		offset = newOffset;
+	}
+
+	/**
+	 * Throws an exception if the list was modified other than through this iterator.
+	 */
+	private void checkForComodification()
+	{
+		if (modCount != expectedModCount)
+			throw new ConcurrentModificationException();
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return currentPosition < size;
+	}
+
+	@Override
+	public E next()
+	{
+		checkForComodification();
+		if (!hasNext())
+			throw new NoSuchElementException();
+		lastAction = NEXT;
+		E item = read(node, offset);
+		currentPosition++;
+		moveTo(node, offset + 1);
+		return item;
+	}
+
+	@Override
+	public boolean hasPrevious()
+	{
+		return currentPosition > 0;
+	}
+
+	@Override
+	public E previous()
+	{
+		checkForComodification();
+		if (!hasPrevious())
+			throw new NoSuchElementException();
+		lastAction = PREVIOUS;
+		if (offset == 0) {
+			node = OffHeapStoutList.this.previous(node);
+			offset = count(node);
+		}
+		offset--;
+		currentPosition--;
+		return read(node, offset);
+	}
+
+	@Override
+	public int nextIndex()
+	{
+		return currentPosition;
+	}
+
+	@Override
+	public int previousIndex()
+	{
+		return currentPosition - 1;
+	}
+
+	@Override
+	public void remove()
+	{
+		checkForComodification();
+		if (lastAction == NEXT) {
+			// The element just returned sits right before the cursor
+			if (offset == 0) {
+				int target = OffHeapStoutList.this.previous(node);
+				removeAt(target, count(target) - 1);
+			} else {
+				removeAt(node, offset - 1);
+			}
+			currentPosition--;
+		} else if (lastAction == PREVIOUS) {
+			removeAt(node, offset);
+		} else {
+			throw new IllegalStateException();
+		}
+		moveTo(foundNode, foundOff);
+		expectedModCount = modCount;
+		lastAction = -1;
+	}
+
+	@Override
+	public void set(E item)
+	{
+		checkForComodification();
+		if (item == null)
+			throw new NullPointerException();
+		if (lastAction == NEXT) {
+			if (offset == 0) {
+				int target = OffHeapStoutList.this.previous(node);
+				write(target, count(target) - 1, item);
+			} else {
+				write(node, offset - 1, item);
+			}
+		} else if (lastAction == PREVIOUS) {
+			write(node, offset, item);
+		} else {
+			throw new IllegalStateException();
+		}
+	}
+
+	@Override
+	public void add(E item)
+	{
+		checkForComodification();
+		if (item == null)
+			throw new NullPointerException();
+		insertAt(node, offset, item);
+		currentPosition++;
+		// The cursor goes right after the new element
+		moveTo(foundNode, foundOff + 1);
+		expectedModCount = modCount;
+		lastAction = -1;
+	}
+  }
+}
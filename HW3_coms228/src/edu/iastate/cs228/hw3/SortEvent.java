@@ -0,0 +1,26 @@
+package edu.iastate.cs228.hw3;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for sorting a StoutList.
+ */
+@Name("edu.iastate.cs228.hw3.Sort")
+@Label("StoutList Sort")
+@Category("StoutList")
+@Description("Sorting of a StoutList, including packing the elements into new nodes")
+class SortEvent extends Event
+{
+	@Label("Elements")
+	int size;
+
+	@Label("Node Size")
+	int nodeSize;
+
+	@Label("Parallel")
+	boolean parallel;
+}
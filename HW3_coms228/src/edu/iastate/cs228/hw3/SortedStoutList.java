@@ -0,0 +1,570 @@
+package edu.iastate.cs228.hw3;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * StoutList that keeps its elements in ascending order.  Since every node is
+ * sorted, and the nodes are sorted among themselves, an element is located by
+ * descending the positional index comparing against the first element of each
+ * node, then by binary search inside the node; add(E), indexOf(), contains(),
+ * remove(Object), floor(), ceiling() and range() all take O(log n) time.
+ *
+ * Elements that compare equal are only kept once, so the list behaves like a
+ * sorted set.  Equality is decided by the comparator rather than by equals().
+ * Methods that would place an element at a given position, such as
+ * add(int, E), set(), the Deque insertion methods addFirst(), addLast(),
+ * offerFirst(), offerLast() and push(), applyBatch(), spliceIn(), concat()
+ * and the add() and set() methods of the list iterators, throw
+ * UnsupportedOperationException.  offer(), like add(E), puts the element at
+ * its place in the order, so the list can serve as a priority queue with
+ * poll() and peek().
+ *
+ * @param <E> type of the elements
+ */
+public class SortedStoutList<E extends Comparable<? super E>> extends StoutList<E>
+{
+  /**
+   * addAll() inserts the elements one by one when the list is more than this
+   * many times larger than the collection, and merges them in bulk otherwise.
+   */
+  private static final int BULK_ADD_RATIO = 32;
+
+  /**
+   * Order of the elements.
+   */
+  private final Comparator<? super E> comparator;
+
+  /**
+   * Constructs an empty list with the default node size, ordered by the
+   * natural ordering of the elements.
+   */
+  public SortedStoutList()
+  {
+	  this(DEFAULT_NODESIZE, null);
+  }
+
+  /**
+   * Constructs an empty list with the given node size, ordered by the natural
+   * ordering of the elements.
+   * @param nodeSize number of elements that may be stored in each node, must be
+   *   an even number
+   */
+  public SortedStoutList(int nodeSize)
+  {
+	  this(nodeSize, null);
+  }
+
+  /**
+   * Constructs an empty list with the given node size and order.
+   * @param nodeSize number of elements that may be stored in each node, must be
+   *   an even number
+   * @param comparator order of the elements, or null for the natural ordering
+   */
+  public SortedStoutList(int nodeSize, Comparator<? super E> comparator)
+  {
+	  // Lookups go through the order, so no membership index is needed
+	  super(nodeSize, false);
+	  this.comparator = comparator == null ? Comparator.naturalOrder() : comparator;
+  }
+
+  /**
+   * Constructs a list with the given node size holding the elements of the
+   * collection in natural order, packed into full nodes.
+   * @param items elements to be added
+   * @param nodeSize number of elements that may be stored in each node, must be
+   *   an even number
+   */
+  public SortedStoutList(Collection<? extends E> items, int nodeSize)
+  {
+	  this(nodeSize, null);
+	  addAll(items);
+  }
+
+  /**
+   * Returns the order of the elements.
+   */
+  public Comparator<? super E> comparator()
+  {
+	  return comparator;
+  }
+
+  /**
+   * Adds an item at its place in the order, unless an equal element is
+   * already in the list.
+   * @param item element to be added
+   * @return true if the list changed
+   */
+  @Override
+  public boolean add(E item)
+  {
+	  return insert(item) >= 0;
+  }
+
+  /**
+   * Adds an item at its place in the order, unless an equal element is
+   * already in the list.
+   * @param item element to be added
+   * @return position of the added element, or -1 if an equal element is
+   *   already in the list
+   */
+  public int insert(E item)
+  {
+	  if (item == null)
+		  throw new NullPointerException();
+	  int pos = lowerBound(item);
+	  if (matches(item))
+		  return -1;
+	  insertAt(found.node, found.off, item);
+	  compactStep();
+	  return pos;
+  }
+
+  /**
+   * Same as add(E): adds an item at its place in the order, unless an equal
+   * element is already in the list.
+   * @param item element to be added
+   * @return true if the list changed
+   */
+  @Override
+  public boolean offer(E item)
+  {
+	  return insert(item) >= 0;
+  }
+
+  /**
+   * Not supported, since pushing would put the element first rather than at
+   * its place in the order.
+   */
+  @Override
+  public void push(E item)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Adds the elements of the collection that are not in the list.  A few
+   * elements are inserted one by one; more are sorted, merged with the
+   * elements of the list and packed into full nodes in one pass.
+   * @param items elements to be added
+   * @return true if the list changed
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean addAll(Collection<? extends E> items)
+  {
+	  E[] arr = items.toArray((E[]) new Comparable[items.size()]);
+	  for (E item : arr) {
+		  if (item == null)
+			  throw new NullPointerException();
+	  }
+	  if ((long) arr.length * BULK_ADD_RATIO < size()) {
+		  boolean changed = false;
+		  for (E item : arr)
+			  changed |= insert(item) >= 0;
+		  return changed;
+	  }
+
+	  Arrays.sort(arr, comparator);
+	  E[] merged = (E[]) new Comparable[size() + arr.length];
+	  int k = 0, i = 0;
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  for (int j = 0; j < temp.count; j++) {
+			  E item = temp.get(j);
+			  while (i < arr.length && compare(arr[i], item) < 0)
+				  k = appendDistinct(merged, k, arr[i++]);
+			  while (i < arr.length && compare(arr[i], item) == 0)
+				  i++;
+			  merged[k++] = item;
+		  }
+	  }
+	  while (i < arr.length)
+		  k = appendDistinct(merged, k, arr[i++]);
+
+	  if (k == size())
+		  return false;
+	  reload(Arrays.copyOf(merged, k));
+	  return true;
+  }
+
+  /**
+   * Stores an item after the first k merged elements unless it equals the
+   * last of them, and returns the new number of merged elements.
+   */
+  private int appendDistinct(E[] merged, int k, E item)
+  {
+	  if (k > 0 && compare(merged[k - 1], item) == 0)
+		  return k;
+	  merged[k] = item;
+	  return k + 1;
+  }
+
+  /**
+   * Not supported, since the position of an element is given by the order.
+   */
+  @Override
+  public void add(int pos, E item)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, since the position of an element is given by the order.
+   */
+  @Override
+  public E set(int pos, E item)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, since the position of an element is given by the order.
+   */
+  @Override
+  public void addFirst(E item)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, since the position of an element is given by the order.
+   */
+  @Override
+  public void addLast(E item)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, since the position of an element is given by the order.
+   */
+  @Override
+  public boolean offerFirst(E item)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, since the position of an element is given by the order.
+   */
+  @Override
+  public boolean offerLast(E item)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, since the position of an element is given by the order.
+   */
+  @Override
+  public void applyBatch(List<Edit<E>> edits)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Not supported, since the elements of the other list would have to be
+   * merged into the order.  concat() comes here too.
+   */
+  @Override
+  public void spliceIn(int pos, StoutList<E> other)
+  {
+	  throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the position of an element equal to the given one, in O(log n)
+   * time.
+   * @param item element to be located
+   * @return its position, or -1 if there is none
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public int indexOf(Object item)
+  {
+	  if (item == null)
+		  return -1;
+	  try {
+		  int pos = lowerBound((E) item);
+		  return matches((E) item) ? pos : -1;
+	  } catch (ClassCastException e) {
+		  return -1;
+	  }
+  }
+
+  @Override
+  public int lastIndexOf(Object item)
+  {
+	  return indexOf(item);
+  }
+
+  @Override
+  public boolean contains(Object item)
+  {
+	  return indexOf(item) >= 0;
+  }
+
+  /**
+   * Removes the element equal to the given one, in O(log n) time.
+   * @param item element to be removed
+   * @return true if the list changed
+   */
+  @Override
+  public boolean remove(Object item)
+  {
+	  if (indexOf(item) < 0)
+		  return false;
+	  removeAt(found.node, found.off);
+	  compactStep();
+	  return true;
+  }
+
+  /**
+   * Returns the greatest element less than or equal to the given one.
+   * @param item element to be compared with
+   * @return the element, or null if there is none
+   */
+  public E floor(E item)
+  {
+	  lowerBound(item);
+	  if (matches(item))
+		  return found.node.get(found.off);
+	  if (found.off > 0)
+		  return found.node.get(found.off - 1);
+	  Node pred = found.node.previous;
+	  return pred == head ? null : pred.get(pred.count - 1);
+  }
+
+  /**
+   * Returns the least element greater than or equal to the given one.
+   * @param item element to be compared with
+   * @return the element, or null if there is none
+   */
+  public E ceiling(E item)
+  {
+	  lowerBound(item);
+	  return found.node == tail ? null : found.node.get(found.off);
+  }
+
+  /**
+   * Returns an iterator over the elements from the given one, inclusive, to
+   * the other, exclusive.  Finding the first element takes O(log n) time and
+   * each further element O(1).  Like the list iterators, it fails fast if the
+   * list is modified while it is in use.
+   * @param from lower bound of the range, inclusive
+   * @param to upper bound of the range, exclusive
+   * @return iterator over the elements in the range, in order
+   */
+  public Iterator<E> range(E from, E to)
+  {
+	  if (from == null || to == null)
+		  throw new NullPointerException();
+	  ListIterator<E> iter = super.listIterator(lowerBound(from));
+	  return new Iterator<E>() {
+		  // The element that next() returns, or null at the end of the range
+		  private E next = advance();
+
+		  private E advance()
+		  {
+			  if (!iter.hasNext())
+				  return null;
+			  E item = iter.next();
+			  return compare(item, to) < 0 ? item : null;
+		  }
+
+		  @Override
+		  public boolean hasNext()
+		  {
+			  return next != null;
+		  }
+
+		  @Override
+		  public E next()
+		  {
+			  if (next == null)
+				  throw new NoSuchElementException();
+			  E item = next;
+			  next = advance();
+			  return item;
+		  }
+	  };
+  }
+
+  /**
+   * Does nothing if the list is already in the order of the comparator, as
+   * it is for the natural ordering when the list uses it.
+   * @throws UnsupportedOperationException if sorting would change the order
+   */
+  @Override
+  public void sort(Comparator<? super E> comp)
+  {
+	  if (comp == null)
+		  comp = Comparator.naturalOrder();
+	  E last = null;
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  for (int i = 0; i < temp.count; i++) {
+			  if (last != null && comp.compare(last, temp.get(i)) > 0)
+				  throw new UnsupportedOperationException();
+			  last = temp.get(i);
+		  }
+	  }
+  }
+
+  @Override
+  public void parallelSort(Comparator<? super E> comp)
+  {
+	  sort(comp);
+  }
+
+  @Override
+  public Iterator<E> iterator()
+  {
+	  return new SortedIterator(super.listIterator());
+  }
+
+  @Override
+  public ListIterator<E> listIterator()
+  {
+	  return new SortedIterator(super.listIterator());
+  }
+
+  @Override
+  public ListIterator<E> listIterator(int index)
+  {
+	  return new SortedIterator(super.listIterator(index));
+  }
+
+  private int compare(E a, E b)
+  {
+	  return comparator.compare(a, b);
+  }
+
+  /**
+   * Returns whether found holds an element equal to the given one.
+   */
+  private boolean matches(E item)
+  {
+	  return found.node != tail && compare(found.node.get(found.off), item) == 0;
+  }
+
+  /**
+   * Locates the first element not less than the given one.  The index is
+   * descended to the last node whose first element is less than the item,
+   * and the node is then searched by bisection.  On return, found holds the
+   * node and offset of the element, or the tail if there is none.
+   * @param item element to be compared with
+   * @return position of the element, or size() if there is none
+   */
+  private int lowerBound(E item)
+  {
+	  index.flush();
+	  Node temp = index.root, last = null;
+	  int start = 0, lastStart = 0;
+	  while (temp != null) {
+		  if (compare(temp.get(0), item) < 0) {
+			  last = temp;
+			  lastStart = start + index.weight(temp.left);
+			  start = lastStart + temp.count;
+			  temp = temp.right;
+		  } else {
+			  temp = temp.left;
+		  }
+	  }
+
+	  // Every element is at least item
+	  if (last == null) {
+		  found.node = head.next;
+		  found.off = 0;
+		  return 0;
+	  }
+
+	  int lo = 1, hi = last.count;
+	  while (lo < hi) {
+		  int mid = (lo + hi) >>> 1;
+		  if (compare(last.get(mid), item) < 0)
+			  lo = mid + 1;
+		  else
+			  hi = mid;
+	  }
+	  if (lo == last.count) {
+		  found.node = last.next;
+		  found.off = 0;
+	  } else {
+		  found.node = last;
+		  found.off = lo;
+	  }
+	  return lastStart + lo;
+  }
+
+  /**
+   * List iterator that refuses the mutations that could break the order.
+   */
+  private class SortedIterator implements ListIterator<E>
+  {
+	  private final ListIterator<E> iter;
+
+	  SortedIterator(ListIterator<E> iter)
+	  {
+		  this.iter = iter;
+	  }
+
+	  @Override
+	  public boolean hasNext()
+	  {
+		  return iter.hasNext();
+	  }
+
+	  @Override
+	  public E next()
+	  {
+		  return iter.next();
+	  }
+
+	  @Override
+	  public boolean hasPrevious()
+	  {
+		  return iter.hasPrevious();
+	  }
+
+	  @Override
+	  public E previous()
+	  {
+		  return iter.previous();
+	  }
+
+	  @Override
+	  public int nextIndex()
+	  {
+		  return iter.nextIndex();
+	  }
+
+	  @Override
+	  public int previousIndex()
+	  {
+		  return iter.previousIndex();
+	  }
+
+	  @Override
+	  public void remove()
+	  {
+		  iter.remove();
+	  }
+
+	  @Override
+	  public void set(E item)
+	  {
+		  throw new UnsupportedOperationException();
+	  }
+
+	  @Override
+	  public void add(E item)
+	  {
+		  throw new UnsupportedOperationException();
+	  }
+  }
+}
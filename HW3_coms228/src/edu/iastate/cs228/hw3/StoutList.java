@@ -1,28 +1,76 @@
 package edu.iastate.cs228.hw3;
 
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
 import java.util.AbstractSequentialList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
-
-import static org.junit.jupiter.api.Assertions.*;
-
-import org.junit.jupiter.api.Test;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Implementation of the list interface based on linked nodes
  * that store multiple items per node.  Rules for adding and removing
  * elements ensure that each node (except possibly the last one)
  * is at least half full.
+ * 
+ * The list is also a Deque whose methods work on the first and last
+ * nodes only, in O(1) amortized time.  To keep them that cheap, the
+ * first node is exempt from the half-full rule after elements have
+ * been added or removed at the front.
+ * 
+ * add(E) and the Deque insertion methods (addFirst(), addLast(),
+ * offerFirst(), offerLast(), offer() and push()) do not insert an
+ * element that is already in the list: the offer methods and add(E)
+ * return false and the others leave the list unchanged.  Only the
+ * positional methods, add(int, E), set() and the list iterator's
+ * add() and set(), accept duplicates.  The duplicate check uses the
+ * membership index when there is one and scans the list otherwise.
  */
-public class StoutList<E extends Comparable<? super E>> extends AbstractSequentialList<E>
+public class StoutList<E extends Comparable<? super E>> extends AbstractSequentialList<E> implements Deque<E>
 {
   /**
    * Default number of elements that may be stored in each node.
    */
-  private static final int DEFAULT_NODESIZE = 4;
+  static final int DEFAULT_NODESIZE = 4;
+  
+  /**
+   * Ranges of at most this many elements are sorted by insertion sort.
+   */
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+  
+  /**
+   * Default number of elements below which parallelSort() sorts sequentially.
+   */
+  private static final int DEFAULT_PARALLEL_SORT_THRESHOLD = 1 << 13;
+  
+  /**
+   * applyBatch() applies the edits one by one when the list is more than
+   * this many times larger than the batch, and in one pass otherwise.
+   */
+  private static final int EDIT_BATCH_RATIO = 32;
   
   /**
    * Number of elements that can be stored in each node.
@@ -39,13 +87,88 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
   /**
    * Dummy node for tail.
    */
-  private Node tail;
+  Node tail;
   
   /**
    * Number of elements in the list.
    */
   private int size;
   
+  /**
+   * Positional index over the nodes between head and tail.
+   */
+  final NodeIndex index = new NodeIndex();
+  
+  /**
+   * Result holder reused by every call to find(), so that a lookup
+   * does not allocate.
+   */
+  final NodeInfo found = new NodeInfo(null, 0);
+  
+  /**
+   * Finger left by the last positional operation: a node and the list
+   * position of its first element.  It is only valid while modCount equals
+   * fingerModCount, so any modification that does not refresh it drops it.
+   */
+  private Node finger;
+  private int fingerStart, fingerModCount = -1;
+  
+  /**
+   * Hash index of the elements in the list used by contains(), or null if
+   * contains() scans the nodes instead.
+   */
+  private final MembershipIndex members;
+  
+  /**
+   * Number of elements below which parallelSort() falls back to the sequential
+   * sort, and the size of the chunks it sorts in parallel otherwise.
+   */
+  private int parallelSortThreshold = DEFAULT_PARALLEL_SORT_THRESHOLD;
+  
+  /**
+   * Source of epoch numbers, shared by all lists so that no two epochs are equal.
+   */
+  private static final AtomicLong EPOCHS = new AtomicLong();
+  
+  /**
+   * Current epoch of this list.  Nodes created in an earlier epoch may be shared
+   * with a snapshot and are copied before they are modified.
+   */
+  private long epoch = EPOCHS.incrementAndGet();
+  
+  /**
+   * Free nodes kept for reuse, chained through their next links.
+   */
+  private Node pool;
+  
+  /**
+   * Number of nodes in the pool, and the most it may hold.  The pool is off
+   * while its capacity is 0.
+   */
+  private int pooled, poolCapacity;
+  
+  /**
+   * Number of nodes taken from the pool, and allocated because it was empty.
+   */
+  private long poolHits, poolMisses;
+  
+  /**
+   * Structural counters, or null while metrics are disabled.
+   */
+  private StoutListMetrics metrics;
+  
+  /**
+   * Elements per node that incremental compaction fills nodes up to, and
+   * the number of nodes it visits per add(int, E) or remove(int), or 0 while
+   * it is off.
+   */
+  private int compactTarget, compactNodes;
+  
+  /**
+   * Position from which the next incremental compaction step starts.
+   */
+  private int compactCursor;
+  
   /**
    * Constructs an empty list with the default node size.
    */
@@ -55,11 +178,26 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
   }
 
   /**
-   * Constructs an empty list with the given node size.
+   * Constructs an empty list with the given node size, without the
+   * membership index.
    * @param nodeSize number of elements that may be stored in each node, must be 
    *   an even number
    */
   public StoutList(int nodeSize)
+  {
+    this(nodeSize, false);
+  }
+  
+  /**
+   * Constructs an empty list with the given node size.  With the membership
+   * index, duplicate checks in add(E) and contains() take O(1) expected time
+   * at the cost of a hash table holding every element; without it they scan
+   * the list.  The other constructors leave the index off.
+   * @param nodeSize number of elements that may be stored in each node, must be 
+   *   an even number
+   * @param indexMembership whether to maintain the membership index
+   */
+  public StoutList(int nodeSize, boolean indexMembership)
   {
     if (nodeSize <= 0 || nodeSize % 2 != 0)
     	throw new IllegalArgumentException();
@@ -70,6 +208,36 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
     head.next = tail;
     tail.previous = head;
     this.nodeSize = nodeSize;
+    members = indexMembership ? new MembershipIndex() : null;
+  }
+  
+  /**
+   * Constructs a list with the given node size holding the elements of the
+   * collection in iteration order.  As with add(E), nulls are rejected and
+   * repeated elements are only kept once.  The elements are packed into full
+   * nodes in a single pass.
+   * @param items elements to be added
+   * @param nodeSize number of elements that may be stored in each node, must be 
+   *   an even number
+   */
+  public StoutList(Collection<? extends E> items, int nodeSize)
+  {
+    this(nodeSize);
+    addAll(items);
+  }
+  
+  /**
+   * Constructs a list with the given node size holding the elements of the
+   * array in order.  As with add(E), nulls are rejected and repeated elements
+   * are only kept once.  The elements are packed into full nodes in a single pass.
+   * @param items elements to be added
+   * @param nodeSize number of elements that may be stored in each node, must be 
+   *   an even number
+   */
+  public StoutList(E[] items, int nodeSize)
+  {
+    this(nodeSize);
+    addAllPacked(items.clone());
   }
   
   /**
@@ -85,6 +253,8 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	  this.tail = tail; 
 	  this.nodeSize = nodeSize; 
 	  this.size = size; 
+	  this.members = null;
+	  index.rebuild();
   }
 
   /*
@@ -98,6 +268,58 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
     return size;
   }
   
+  /**
+   * Returns the element at the given position, located through the finger
+   * or the positional index in O(log n) time.
+   * 
+   * @param pos position of the element
+   * @return the element
+   */
+  @Override
+  public E get(int pos)
+  {
+	  if (pos < 0 || pos >= size)
+		  throw new IndexOutOfBoundsException();
+	  NodeInfo info = find(pos);
+	  return info.node.get(info.off);
+  }
+  
+  /**
+   * Replaces the element at the given position, located through the finger
+   * or the positional index in O(log n) time.
+   * 
+   * @param pos position of the element
+   * @param item element to be stored
+   * @return the element previously at the position
+   */
+  @Override
+  public E set(int pos, E item)
+  {
+	  if (item == null)
+		  throw new NullPointerException();
+	  if (pos < 0 || pos >= size)
+		  throw new IndexOutOfBoundsException();
+	  NodeInfo info = find(pos);
+	  return replaceAt(info.node, info.off, item);
+  }
+  
+  /**
+   * Replaces the element at the given node and offset.
+   * 
+   * @return the element previously there
+   */
+  private E replaceAt(Node temp, int offset, E item)
+  {
+	  temp = own(temp);
+	  E old = temp.get(offset);
+	  if (members != null) {
+		  members.remove(old);
+		  members.add(item);
+	  }
+	  temp.set(offset, item);
+	  return old;
+  }
+  
   @Override
   public boolean add(E item)
   {
@@ -113,292 +335,1611 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
     
     // If the list is empty, create a new node and add the item to it
     if (size == 0) {
-    	Node node = new Node();
+    	Node node = newNode();
     	node.addItem(item);
-    	head.next = node;
-    	node.previous = head;
-    	node.next = tail;
-    	tail.previous = node;
+    	link(head, node);
     } else {
     	// If the last node in the list has space, add the item to it
     	if (tail.previous.count < nodeSize) {
-    		tail.previous.addItem(item);
+    		own(tail.previous).addItem(item);
     	} else {
     		// If the last node is full, create a new node and add the item to it
-    		Node node = new Node();
+    		Node node = newNode();
     		node.addItem(item);
-			Node temp = tail.previous;
-			temp.next = node;
-			node.previous = temp;
-			node.next = tail;
-			tail.previous = node;
+    		link(tail.previous, node);
     	}
     }
     
+    if (members != null)
+    	members.add(item);
+    
     size++; // Increment the size of the list
+    modCount++;
     return true; // Return true indicating the item was successfully added
     
   }
   
+  /**
+   * Appends all elements of the collection in iteration order, skipping the
+   * ones that are already in the list or repeated in the collection, like a
+   * series of add(E) calls.  Instead of one duplicate check and append per
+   * element, the elements are filtered in one pass and packed into full nodes.
+   * 
+   * @param items elements to be added
+   * @return true if the list changed
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean addAll(Collection<? extends E> items)
+  {
+	  return addAllPacked(items.toArray((E[]) new Comparable[items.size()]));
+  }
+  
+  /**
+   * Appends the elements of an array that the list may modify, skipping the
+   * ones that are already in the list or repeated earlier in the array.
+   * 
+   * @param items elements to be added
+   * @return true if the list changed
+   */
+  private boolean addAllPacked(E[] items)
+  {
+	  BulkLoadEvent event = new BulkLoadEvent();
+	  event.begin();
+	  for (E item : items) {
+		  if (item == null)
+			  throw new NullPointerException();
+	  }
+	  
+	  // Without the membership index, collect the current elements once
+	  Set<Object> seen = null;
+	  if (members == null) {
+		  seen = new HashSet<>(Math.max(16, (int) ((size + items.length) / .75f) + 1));
+		  for (Node temp = head.next; temp != tail; temp = temp.next)
+			  for (int i = 0; i < temp.count; i++)
+				  seen.add(temp.get(i));
+	  }
+	  
+	  // Compact the elements to keep at the front of the array
+	  int kept = 0;
+	  for (E item : items) {
+		  if (members != null) {
+			  if (members.contains(item))
+				  continue;
+			  members.add(item);
+		  } else if (!seen.add(item)) {
+			  continue;
+		  }
+		  items[kept++] = item;
+	  }
+	  
+	  if (kept > 0) {
+		  appendPacked(items, 0, kept);
+		  modCount++;
+	  }
+	  event.given = items.length;
+	  event.added = kept;
+	  event.nodeSize = nodeSize;
+	  event.commit();
+	  return kept > 0;
+  }
+  
+  /**
+   * Replaces the contents of the list with the given elements, in order and
+   * packed into full nodes.  Unlike addAll(), repeated elements are kept, so
+   * a list can be restored exactly as it was written out.
+   * 
+   * @param items elements of the list, none of them null
+   */
+  void reload(E[] items)
+  {
+	  BulkLoadEvent event = new BulkLoadEvent();
+	  event.begin();
+	  discardNodes();
+	  if (members != null) {
+		  members.clear();
+		  for (E item : items)
+			  members.add(item);
+	  }
+	  appendPacked(items, 0, items.length);
+	  modCount++;
+	  event.given = items.length;
+	  event.added = items.length;
+	  event.nodeSize = nodeSize;
+	  event.commit();
+  }
+  
   @Override
   public void add(int pos, E item)
   {
+	// Check if the item to be added is null, and if so, throw an exception
+	if (item == null)
+		throw new NullPointerException();
+	
 	// Check if the position is out of bounds, and if so, throw an exception
     if(pos < 0 || pos > size)
     	throw new IndexOutOfBoundsException();
     
-    // If the list is empty, simply add the item to the list
-    if (head.next == tail)
-    	add(item);
-    
     // Find the node and offset corresponding to the given position
     NodeInfo node = find(pos);
-    Node temp = node.node;
-    int offset = node.off;
+    insertAt(node.node, node.off, item);
+    compactStep();
+  }
+  
+  /**
+   * Inserts an item in front of the element at the given node and offset,
+   * splitting the node if it is full.  On return, found holds the node and
+   * offset where the item ended up.
+   * 
+   * @param temp node holding the element at the insertion position, or the
+   *   tail when inserting at the end
+   * @param offset offset of that element within the node
+   * @param item element to be added
+   */
+  void insertAt(Node temp, int offset, E item)
+  {
+    int pos = positionOf(temp, offset);
+    insertItem(temp, offset, item);
+    if (pos >= 0)
+    	setFinger(found.node, pos - found.off);
+  }
+  
+  /**
+   * Does the work of insertAt(), leaving the finger alone.
+   */
+  private void insertItem(Node temp, int offset, E item)
+  {
+    modCount++;
+    size++; // Increment the size of the list
+    if (members != null)
+    	members.add(item);
     
     // If the offset is 0, it means we're adding at the beginning of a node
     if(offset == 0) {
     	// If the previous node has space and it's not the head, add the item to the previous node
     	if (temp.previous.count < nodeSize && temp.previous != head) {
-    		temp.previous.addItem(item);
-    		size++;
+    		Node pred = own(temp.previous);
+    		pred.addItem(item);
+    		found.node = pred;
+    		found.off = pred.count - 1;
     		return;
-    	} else if (temp == tail) { // If the current node is the tail, simply add the item to the list
-    		add(item);
-    		size++;
+    	} else if (temp == tail) { // If the current node is the tail, put the item in a new last node
+    		Node newNode = newNode();
+    		newNode.addItem(item);
+    		link(tail.previous, newNode);
+    		found.node = newNode;
+    		found.off = 0;
     		return;
     	}
     }
     
     // If the current node has space, add the item to the current node at the specified offset
+    temp = own(temp);
     if (temp.count < nodeSize) {
     	temp.addItem(offset, item);
+    	found.node = temp;
+    	found.off = offset;
     } else {
     	// If the current node is full, we need to split it and create a new successor node
-    	Node newSuccessor = new Node();
+    	if (metrics != null)
+    		metrics.split();
+    	Node newSuccessor = newNode();
     	int half = nodeSize / 2;
-    	int count = 0;
-    	// Move half of the items from the current node to the new successor node
-    	while (count < half) {
-    		newSuccessor.addItem(temp.data[half]);
-    		temp.removeItem(half);
-    		count++;
-    	}
-    	
-    	// Update the links to insert the new successor node after the current node
-    	Node oldSuccessor = temp.next;
     	
-    	temp.next = newSuccessor;
-    	newSuccessor.previous = temp;
-    	newSuccessor.next = oldSuccessor;
-    	oldSuccessor.previous = newSuccessor;
+    	// Move half of the items from the current node to the new successor node
+    	// and insert the successor after the current node
+    	temp.moveTo(half, newSuccessor);
+    	link(temp, newSuccessor);
     	
     	// Add the item to the appropriate node based on the offset
     	if (offset <= nodeSize / 2) {
     		temp.addItem(offset, item);
+    		found.node = temp;
+    		found.off = offset;
     	}
     	
     	if (offset > nodeSize / 2) {
     		newSuccessor.addItem((offset - nodeSize / 2), item);
+    		found.node = newSuccessor;
+    		found.off = offset - nodeSize / 2;
     	}
     	
     }
-    
-    size++; // Increment the size of the list
   }
 
   @Override
   public E remove(int pos)
   {
 	  	// Check if the position is out of bounds, and if so, throw an exception
-		if (pos < 0 || pos > size)
+		if (pos < 0 || pos >= size)
 			throw new IndexOutOfBoundsException();
 		
 		// Find the node and offset corresponding to the given position
 		NodeInfo nodeInfo = find(pos);
-		Node temp = nodeInfo.node;
-		int offset = nodeInfo.off;
-		E nodeValue = temp.data[offset]; // Store the value to be removed for returning later
+		E item = removeAt(nodeInfo.node, nodeInfo.off);
+		compactStep();
+		return item;
+  }
+  
+  /**
+   * Removes the element at the given node and offset, borrowing from or
+   * merging with the successor to keep the node at least half full.  On
+   * return, found holds the node and offset of the element that followed
+   * the removed one (the tail if there is none).
+   * 
+   * @param temp node holding the element
+   * @param offset offset of the element within the node
+   * @return the removed element
+   */
+  E removeAt(Node temp, int offset)
+  {
+		int pos = positionOf(temp, offset);
+		temp = own(temp);
+		E nodeValue = temp.get(offset); // Store the value to be removed for returning later
+		modCount++;
+		if (members != null)
+			members.remove(nodeValue);
+		found.node = temp;
+		found.off = offset;
 
 		// If the node is the last one and contains only one element
 		if (temp.next == tail && temp.count == 1) {
-			Node predecessor = temp.previous;
 			// Remove the node by updating the links of its predecessor and successor
-			predecessor.next = temp.next;
-			temp.next.previous = predecessor;
-			temp = null;
+			unlink(temp);
+			found.node = tail;
+			found.off = 0;
 		} else if (temp.next == tail || temp.count > nodeSize / 2) {
 			// If the node is the last one or contains more than half of the nodeSize elements, simply remove the element at the offset
 			temp.removeItem(offset);
 		} else {
 			// If the node contains half or less of the nodeSize elements
 			temp.removeItem(offset);
-			Node succesor = temp.next;
+			Node succesor = own(temp.next);
 			
 			// If the successor node contains more than half of the nodeSize elements
 			if (succesor.count > nodeSize / 2) {
 				// Move the first element from the successor to the current node
-				temp.addItem(succesor.data[0]);
+				if (metrics != null)
+					metrics.borrow();
+				temp.addItem(succesor.get(0));
 				succesor.removeItem(0);
 			} else if (succesor.count <= nodeSize / 2) {
 				// If the successor node contains half or less of the nodeSize elements
 	            // Move all elements from the successor to the current node
-				for (int i = 0; i < succesor.count; i++) {
-					temp.addItem(succesor.data[i]);
-				}
+				if (metrics != null)
+					metrics.merge();
+				succesor.moveTo(0, temp);
 				// Remove the successor node by updating the links
-				temp.next = succesor.next;
-				succesor.next.previous = temp;
-				succesor = null;
+				unlink(succesor);
 			}
 		}
 		size--; // Decrement the size of the list
+		
+		// The following element may now be the first one of the next node
+		if (found.node != tail && found.off == found.node.count) {
+			found.node = found.node.next;
+			found.off = 0;
+		}
+		
+		// Leave the finger on the node of the following element, or the last node
+		if (found.node != tail) {
+			if (pos >= 0)
+				setFinger(found.node, pos - found.off);
+		} else if (tail.previous != head) {
+			setFinger(tail.previous, size - tail.previous.count);
+		}
 		return nodeValue; // Return the removed value
   }
 
   /**
-   * Sort all elements in the stout list in the NON-DECREASING order. You may do the following. 
-   * Traverse the list and copy its elements into an array, deleting every visited node along 
-   * the way.  Then, sort the array by calling the insertionSort() method.  (Note that sorting 
-   * efficiency is not a concern for this project.)  Finally, copy all elements from the array 
-   * back to the stout list, creating new nodes for storage. After sorting, all nodes but 
-   * (possibly) the last one must be full of elements.  
-   *  
-   * Comparator<E> must have been implemented for calling insertionSort().    
+   * Removes the elements that satisfy the filter in a single pass over the
+   * nodes, packing the survivors into full nodes and then rebuilding the
+   * positional index, in O(n) time overall.  Nothing is touched before the
+   * first element removed.  If the filter throws, the elements not yet
+   * tested are kept and the list is left consistent.
+   * 
+   * @param filter predicate for the elements to be removed
+   * @return true if any element was removed
    */
-  public void sort()
+  @Override
+  public boolean removeIf(Predicate<? super E> filter)
   {
-	  	// Create an array to hold all the data elements from the list
-		E[] sortDataList = (E[]) new Comparable[size];
-
-		int tempIndex = 0;
-		Node temp = head.next;
-		
-		// Traverse through the list and copy all elements to the array
-		while (temp != tail) {
-			for (int i = 0; i < temp.count; i++) {
-				sortDataList[tempIndex] = temp.data[i];
-				tempIndex++;
-			}
-			temp = temp.next;
-		}
-
-		// Reset the list to be empty
-		head.next = tail;
-		tail.previous = head;
-
-		// Sort the array using insertion sort in non-decreasing order
-		insertionSort(sortDataList, new ElementComparator());
-		size = 0;
-		
-		// Copy sorted elements back to the list
-		for (int i = 0; i < sortDataList.length; i++) {
-			add(sortDataList[i]);
-		} 
+	  Objects.requireNonNull(filter);
+	  return sweep(head.next, 0, size, filter);
   }
   
-  /**
-   * Sort all elements in the stout list in the NON-INCREASING order. Call the bubbleSort()
-   * method.  After sorting, all but (possibly) the last nodes must be filled with elements.  
-   *  
-   * Comparable<? super E> must be implemented for calling bubbleSort(). 
-   */
-  public void sortReverse() 
+  @Override
+  public boolean removeAll(Collection<?> items)
   {
-	  // Create an array to hold all the data elements from the list
-	  E[] reverseSortDataList = (E[]) new Comparable[size];
-	  
-	  int tempIndex = 0;
-	  Node tempNode = head.next;
-	  
-	  // Traverse through the list and copy all elements to the array
-	  while (tempNode != tail) {
-		  for(int i = 0; i < tempNode.count; i++) {
-			  reverseSortDataList[tempIndex] = tempNode.data[i];
-			  tempIndex++;
-		  }
-		  tempNode = tempNode.next;
-	  }
-	  
-	  // Reset the list to be empty
-	  head.next = tail;
-	  tail.previous = head;
-	  
-	  // Sort the array using bubble sort in non-increasing order
-	  bubbleSort(reverseSortDataList);
-	  size = 0;
-	  for (int i = 0; i < reverseSortDataList.length; i++) {
-		  add(reverseSortDataList[i]);
-	  }
+	  Objects.requireNonNull(items);
+	  return removeIf(items::contains);
   }
   
   @Override
-  public Iterator<E> iterator()
+  public boolean retainAll(Collection<?> items)
   {
-	  return new StoutListIterator(); 
+	  Objects.requireNonNull(items);
+	  return removeIf(item -> !items.contains(item));
   }
-
+  
+  /**
+   * Removes all elements, dropping the nodes in one pass.
+   */
   @Override
-  public ListIterator<E> listIterator()
+  public void clear()
   {
-	  return new StoutListIterator(); 
+	  discardNodes();
+	  if (members != null)
+		  members.clear();
+	  modCount++;
   }
-
+  
+  /**
+   * Removes the elements from fromIndex, inclusive, to toIndex, exclusive,
+   * in a single pass that also packs the following elements into full
+   * nodes.  This is what subList(from, to).clear() calls.
+   */
   @Override
-  public ListIterator<E> listIterator(int index)
+  protected void removeRange(int fromIndex, int toIndex)
   {
-	  return new StoutListIterator(index); 
+	  if (fromIndex >= toIndex)
+		  return;
+	  NodeInfo start = find(fromIndex);
+	  sweep(start.node, start.off, toIndex - fromIndex, null);
   }
   
   /**
+   * Removes elements in one pass from the given node and offset to the end
+   * of the list.  Of the first limit elements, the ones accepted by the
+   * filter, or all of them if it is null, are removed; every later element
+   * is kept.  Kept elements are packed into full nodes as the pass goes, so
+   * the nodes it touches end up full but for the last one, and emptied nodes
+   * are dropped.  The positional index is then rebuilt from the first node
+   * written on.
    * 
-   * Checks if the StoutList contains the specified item.
-   * 
-   * This method traverses the nodes of the StoutList, checking each element
-   * in the nodes' data arrays. If it finds an element that matches the 
-   * specified item, it returns true. Otherwise, it returns false.
+   * The pass reads each node before it writes into it, and nodes that may
+   * be shared with a snapshot are copied before they are written.  Nodes
+   * before the first removal are not written, so they stay shared.
    * 
-   * @param item the element whose presence in this list is to be tested
-   * @return true if this list contains the specified element, false otherwise
+   * @return true if any element was removed
    */
-  public boolean contains(E item) {
-	  if (size < 1) 
-		  return false;
+  private boolean sweep(Node node, int offset, int limit, Predicate<? super E> filter)
+  {
+	  // Write position; it stays on the read position until the first removal
+	  Node dst = node, before = null;
+	  int w = offset;
+	  int removed = 0;
+	  Throwable failure = null;
 	  
-	  Node temp = head.next;  
-	  while(temp != tail) {
-		  for(int i = 0; i < temp.count; i++) {
-			  if(temp.data[i].equals(item))
-				  return true;
-			  temp = temp.next;
+	  for (Node src = node; src != tail; src = src.next, offset = 0) {
+		  for (int i = offset; i < src.count; i++) {
+			  E item = src.get(i);
+			  boolean remove = false;
+			  if (limit > 0 && failure == null) {
+				  limit--;
+				  try {
+					  remove = filter == null || filter.test(item);
+				  } catch (RuntimeException | Error e) {
+					  failure = e;
+				  }
+			  }
+			  
+			  if (remove) {
+				  if (removed++ == 0) {
+					  // Every node from here on is rewritten or dropped, so it
+					  // leaves the index until the pass is over
+					  src = index.truncate(src);
+					  before = src.previous;
+					  dst = claim(src);
+					  w = i;
+				  }
+				  if (members != null)
+					  members.remove(item);
+			  } else if (removed == 0) {
+				  dst = src;
+				  w = i + 1;
+			  } else {
+				  if (w == nodeSize) {
+					  dst.count = nodeSize;
+					  dst = claim(dst.next);
+					  w = 0;
+				  }
+				  dst.set(w++, item);
+			  }
 		  }
+		  
+		  // Stop at the end of a node once nothing more can be removed
+		  if (removed == 0 && (limit == 0 || failure != null))
+			  break;
 	  }
-	  return false;
+	  
+	  if (removed > 0) {
+		  // Close the last node written and drop everything after it
+		  for (int i = w; i < nodeSize; i++)
+			  dst.set(i, null);
+		  dst.count = w;
+		  Node last = w > 0 ? dst : dst.previous;
+		  Node temp = last.next;
+		  while (temp != tail) {
+			  Node next = temp.next;
+			  recycle(temp);
+			  temp = next;
+		  }
+		  last.next = tail;
+		  tail.previous = last;
+		  size -= removed;
+		  modCount++;
+		  index.rebuildFrom(before.next);
+	  }
+	  
+	  if (failure instanceof RuntimeException)
+		  throw (RuntimeException) failure;
+	  if (failure != null)
+		  throw (Error) failure;
+	  return removed > 0;
   }
   
   /**
-   * Returns a string representation of this list showing
-   * the internal structure of the nodes.
+   * Applies a batch of edits in order, with the same result as applying
+   * them one by one with add(int, E), remove(int) and set(int, E).  All
+   * positions are checked before anything is changed, so a batch with an
+   * edit out of bounds leaves the list as it was.
    * 
-   * @return a string representation of the list
+   * A batch that is small next to the list is applied edit by edit.  A
+   * larger one is first resolved into pieces, runs of the current elements
+   * and single new ones, kept in an implicit treap so that each edit takes
+   * O(log k) time for a batch of k edits.  The list is then rewritten in one
+   * pass from the first position that changes, packing the elements into
+   * full nodes as sweep() does, and the positional index is rebuilt from
+   * the node holding that position on.  The nodes before it are left as
+   * they are, shared with a snapshot if there is one.  This takes
+   * O(n + k log k) time in all.
+   * 
+   * @param edits edits to be applied, in order
+   * @throws IndexOutOfBoundsException if an edit is out of bounds for the
+   *   list it would be applied to
    */
-  public String toStringInternal()
+  @SuppressWarnings("unchecked")
+  public void applyBatch(List<Edit<E>> edits)
   {
-    return toStringInternal(null);
+	  // Check every edit against the size of the list it applies to
+	  int newSize = size;
+	  for (Edit<E> edit : edits) {
+		  int last = edit.op() == Edit.Op.INSERT ? newSize : newSize - 1;
+		  if (edit.pos() < 0 || edit.pos() > last)
+			  throw new IndexOutOfBoundsException();
+		  if (edit.op() == Edit.Op.INSERT)
+			  newSize++;
+		  else if (edit.op() == Edit.Op.REMOVE)
+			  newSize--;
+	  }
+	  if (edits.isEmpty())
+		  return;
+	  
+	  if ((long) edits.size() * EDIT_BATCH_RATIO < size) {
+		  for (Edit<E> edit : edits) {
+			  NodeInfo info = find(edit.pos());
+			  if (edit.op() == Edit.Op.INSERT)
+				  insertAt(info.node, info.off, edit.item());
+			  else if (edit.op() == Edit.Op.REMOVE)
+				  removeAt(info.node, info.off);
+			  else
+				  replaceAt(info.node, info.off, edit.item());
+		  }
+		  return;
+	  }
+	  
+	  PieceTable<E> table = new PieceTable<>(size);
+	  for (Edit<E> edit : edits) {
+		  if (edit.op() == Edit.Op.INSERT)
+			  table.insert(edit.pos(), edit.item());
+		  else if (edit.op() == Edit.Op.REMOVE)
+			  table.remove(edit.pos());
+		  else
+			  table.set(edit.pos(), edit.item());
+	  }
+	  List<PieceTable.Piece<E>> pieces = table.pieces();
+	  
+	  // The elements before the first change stay where they are
+	  int first = 0, k = 0;
+	  while (k < pieces.size() && pieces.get(k).item == null && pieces.get(k).from == first)
+		  first = pieces.get(k++).to;
+	  
+	  // Gather the elements from there on in their new order
+	  E[] out = (E[]) new Comparable[newSize - first];
+	  int n = 0, pos = first;
+	  ListIterator<E> iter = new StoutListIterator(first);
+	  for (; k < pieces.size(); k++) {
+		  PieceTable.Piece<E> piece = pieces.get(k);
+		  if (piece.item != null) {
+			  out[n++] = piece.item;
+			  if (members != null)
+				  members.add(piece.item);
+			  continue;
+		  }
+		  for (; pos < piece.from; pos++) {
+			  E item = iter.next();
+			  if (members != null)
+				  members.remove(item);
+		  }
+		  for (; pos < piece.to; pos++)
+			  out[n++] = iter.next();
+	  }
+	  for (; pos < size; pos++) {
+		  E item = iter.next();
+		  if (members != null)
+			  members.remove(item);
+	  }
+	  
+	  // Write them back from the first change on, reusing the nodes there;
+	  // from the node holding it on, the nodes leave the index until the end
+	  NodeInfo info = find(first);
+	  Node dst = info.node;
+	  int w = info.off;
+	  if (dst == tail && tail.previous != head) {
+		  dst = tail.previous;
+		  w = dst.count;
+	  }
+	  Node before;
+	  if (dst != tail) {
+		  dst = claim(index.truncate(dst));
+		  before = dst.previous;
+	  } else {
+		  // The list is empty
+		  before = head;
+		  dst = newNode();
+		  dst.previous = head;
+		  dst.next = tail;
+		  head.next = dst;
+		  tail.previous = dst;
+		  w = 0;
+	  }
+	  for (int i = 0; i < n; i++) {
+		  if (w == nodeSize) {
+			  dst.count = nodeSize;
+			  if (dst.next != tail) {
+				  dst = claim(dst.next);
+			  } else {
+				  Node node = newNode();
+				  node.previous = dst;
+				  node.next = tail;
+				  dst.next = node;
+				  tail.previous = node;
+				  dst = node;
+			  }
+			  w = 0;
+		  }
+		  dst.set(w++, out[i]);
+	  }
+	  
+	  // Close the last node written and drop everything after it
+	  for (int i = w; i < nodeSize; i++)
+		  dst.set(i, null);
+	  dst.count = w;
+	  Node last = w > 0 ? dst : dst.previous;
+	  Node temp = last.next;
+	  while (temp != tail) {
+		  Node next = temp.next;
+		  recycle(temp);
+		  temp = next;
+	  }
+	  last.next = tail;
+	  tail.previous = last;
+	  size = newSize;
+	  modCount++;
+	  index.rebuildFrom(before.next);
   }
-
+  
   /**
-   * Returns a string representation of this list showing the internal
-   * structure of the nodes and the position of the iterator.
-   *
-   * @param iter an iterator for this list
-   * @return a string representation of the list
+   * Cuts the list in two at the given position.  The elements from pos on
+   * are moved to a new list with the same node size, which is returned, and
+   * this list keeps the ones before.  Whole nodes are handed over by
+   * relinking the chain and splitting the positional index; only the node
+   * holding pos is divided, and the first node of the new list is topped up
+   * from its successor if that leaves it less than half full.
+   * 
+   * This takes O(log n) time plus O(1) for each node moved, or O(1) for each
+   * element moved if the list keeps a membership index.
+   * 
+   * @param pos position of the first element to move
+   * @return list holding the elements from pos on
    */
-  public String toStringInternal(ListIterator<E> iter) 
+  public StoutList<E> splitAt(int pos)
   {
-      int count = 0;
-      int position = -1;
-      if (iter != null) {
+	  if (pos < 0 || pos > size)
+		  throw new IndexOutOfBoundsException();
+	  StoutList<E> rest = new StoutList<>(nodeSize, members != null);
+	  if (pos == size)
+		  return rest;
+	  
+	  // Splitting the index may copy nodes on the way, so the ends of the
+	  // moved chain are read from the split index and the tail
+	  int moved = size - pos;
+	  cutBefore(pos);
+	  rest.index.root = index.split(pos);
+	  Node first = rest.index.root;
+	  while (first.left != null)
+		  first = first.left;
+	  Node last = tail.previous;
+	  first.previous.next = tail;
+	  tail.previous = first.previous;
+	  size = pos;
+	  modCount++;
+	  
+	  rest.takeNodes(this, first, last);
+	  rest.head.next = first;
+	  first.previous = rest.head;
+	  last.next = rest.tail;
+	  rest.tail.previous = last;
+	  rest.size = moved;
+	  rest.rebalance(first);
+	  movedOut(pos, pos + moved);
+	  return rest;
+  }
+  
+  /**
+   * Moves all elements of the other list to the end of this one, leaving
+   * the other list empty.  See spliceIn().
+   * 
+   * @param other list whose elements are moved
+   */
+  public void concat(StoutList<E> other)
+  {
+	  spliceIn(size, other);
+  }
+  
+  /**
+   * Moves all elements of the other list into this one, starting at the
+   * given position, and leaves the other list empty.  The nodes of the other
+   * list are relinked into the chain as they are and its positional index is
+   * joined with the two halves of this one, so elements are only moved in
+   * the nodes at the two seams, to keep them at least half full.
+   * 
+   * This takes O(log n) time plus O(1) for each node moved, or O(1) for each
+   * element moved if either list keeps a membership index.
+   * 
+   * @param pos position at which the first element of the other list goes
+   * @param other list with the same node size whose elements are moved
+   * @throws IllegalArgumentException if the other list is this one or has a
+   *   different node size
+   */
+  public void spliceIn(int pos, StoutList<E> other)
+  {
+	  if (pos < 0 || pos > size)
+		  throw new IndexOutOfBoundsException();
+	  if (other == this || other.nodeSize != nodeSize)
+		  throw new IllegalArgumentException();
+	  if (other.size == 0)
+		  return;
+	  
+	  // Owning nodes for the index changes may copy them, so the ends of the
+	  // chains are read once the indexes are split
+	  int moved = other.size;
+	  Node block = other.index.detach();
+	  Node first = other.head.next;
+	  Node last = other.tail.previous;
+	  other.head.next = other.tail;
+	  other.tail.previous = other.head;
+	  other.size = 0;
+	  other.modCount++;
+	  
+	  cutBefore(pos);
+	  Node right = index.split(pos);
+	  Node next = right;
+	  if (next == null)
+		  next = tail;
+	  else
+		  while (next.left != null)
+			  next = next.left;
+	  Node prev = next.previous;
+	  takeNodes(other, first, last);
+	  index.root = index.join(index.join(index.root, block), right);
+	  index.root.parent = null;
+	  prev.next = first;
+	  first.previous = prev;
+	  last.next = next;
+	  next.previous = last;
+	  size += moved;
+	  modCount++;
+	  
+	  // Top up the nodes on both seams, from the right, since fixing a node
+	  // leaves the nodes after it at least half full
+	  for (int seam : new int[] { pos + moved, pos + moved - 1, pos, pos - 1 }) {
+		  if (seam >= 0)
+			  rebalance(find(seam).node);
+	  }
+	  other.movedOut(0, moved);
+	  movedIn(pos, pos + moved);
+  }
+  
+  /**
+   * Called after the elements from fromIndex, inclusive, to toIndex,
+   * exclusive, have been moved out of this list by splitAt() or spliceIn().
+   */
+  void movedOut(int fromIndex, int toIndex)
+  {
+  }
+  
+  /**
+   * Called after spliceIn() has moved elements into this list at the
+   * positions from fromIndex, inclusive, to toIndex, exclusive.
+   */
+  void movedIn(int fromIndex, int toIndex)
+  {
+  }
+  
+  /**
+   * Packs the nodes full.  Same as compact(1.0).
+   */
+  public void compact()
+  {
+	  compact(1.0);
+  }
+  
+  /**
+   * Repacks underfilled nodes in one pass, so that every node but the last
+   * holds at least the given fraction of nodeSize elements.  Each node below
+   * that is topped up from the front of the nodes after it, and nodes that
+   * empty are dropped; nodes already filled that far are left as they are,
+   * so no element moves more than once.  Only the nodes that change are
+   * copied if they may be shared with a snapshot, and the positional index
+   * is updated as elements move.  This takes O(n) time plus O(log n) for
+   * each node changed.
+   * 
+   * @param fillFactor fraction of each node to fill, in (0, 1]; values
+   *   below 0.5 only affect the first node
+   * @throws IllegalArgumentException if fillFactor is out of range
+   */
+  public void compact(double fillFactor)
+  {
+	  int target = targetCount(fillFactor);
+	  if (head.next == tail)
+		  return;
+	  
+	  boolean changed = false;
+	  Node dst = head.next;
+	  while (dst.next != tail) {
+		  if (dst.count < target) {
+			  dst = own(dst);
+			  Node src = own(dst.next);
+			  src.shiftTo(dst, Math.min(target - dst.count, src.count));
+			  changed = true;
+			  if (src.count == 0) {
+				  unlink(src);
+				  continue;
+			  }
+		  }
+		  dst = dst.next;
+	  }
+	  if (changed)
+		  modCount++;
+  }
+  
+  /**
+   * Returns the fraction of the element slots of the nodes that are in
+   * use, or 1 if the list has no nodes.  After long runs of add(int, E) and
+   * remove(int) it tends to about 0.5 to 0.75; compact() raises it.
+   */
+  public double occupancy()
+  {
+	  return index.nodes == 0 ? 1.0 : (double) size / ((long) index.nodes * nodeSize);
+  }
+  
+  /**
+   * Turns on incremental compaction: after each add(int, E) or remove(int),
+   * or add(E) and remove(Object) in a SortedStoutList, up to the given
+   * number of nodes, starting where the last step stopped, are topped up to
+   * the given fill factor from the nodes after them.  The list is compacted
+   * a little at a time and no call pauses for a whole pass.  A step takes
+   * O(nodes * nodeSize * log n) time.
+   * 
+   * @param fillFactor fraction of each node to fill, in (0, 1]
+   * @param nodes number of nodes to visit per step, or 0 to turn it off
+   * @throws IllegalArgumentException if an argument is out of range
+   */
+  public void setIncrementalCompaction(double fillFactor, int nodes)
+  {
+	  if (nodes < 0)
+		  throw new IllegalArgumentException();
+	  compactTarget = targetCount(fillFactor);
+	  compactNodes = nodes;
+  }
+  
+  /**
+   * Returns the number of elements per node a fill factor stands for.  It
+   * is at least nodeSize / 2, which the nodes in the middle of the list hold
+   * anyway.
+   */
+  private int targetCount(double fillFactor)
+  {
+	  if (!(fillFactor > 0 && fillFactor <= 1))
+		  throw new IllegalArgumentException();
+	  return Math.max(nodeSize / 2, (int) Math.ceil(fillFactor * nodeSize));
+  }
+  
+  /**
+   * Takes one step of incremental compaction, if it is on.  Like
+   * compact(), this keeps the index up to date as elements move.
+   */
+  void compactStep()
+  {
+	  if (compactNodes == 0 || size == 0)
+		  return;
+	  if (compactCursor >= size)
+		  compactCursor = 0;
+	  NodeInfo info = find(compactCursor);
+	  Node node = info.node;
+	  int start = compactCursor - info.off;
+	  boolean changed = false;
+	  
+	  for (int visited = 0; visited < compactNodes && node.next != tail; visited++) {
+		  if (node.count < compactTarget) {
+			  node = own(node);
+			  Node succesor = own(node.next);
+			  changed = true;
+			  if (node.count + succesor.count <= compactTarget) {
+				  succesor.moveTo(0, node);
+				  unlink(succesor);
+				  // Visit the node again, as it may still be short or now be last
+				  continue;
+			  }
+			  // This may leave the successor less than half full, in which
+			  // case it is topped up when it is visited next
+			  while (node.count < compactTarget) {
+				  node.addItem(succesor.get(0));
+				  succesor.removeItem(0);
+			  }
+		  }
+		  start += node.count;
+		  node = node.next;
+	  }
+	  
+	  // The node the step stopped at may have been left short
+	  compactCursor = node.next == tail ? 0 : start;
+	  if (changed) {
+		  rebalance(node);
+		  modCount++;
+	  }
+  }
+
+  /**
+   * Inserts an item at the front of the list unless the list already
+   * contains it; see offerFirst(E).
+   * 
+   * @param item element to be added
+   */
+  @Override
+  public void addFirst(E item)
+  {
+	  offerFirst(item);
+  }
+  
+  /**
+   * Inserts an item at the end of the list unless the list already
+   * contains it, exactly like add(E).
+   * 
+   * @param item element to be added
+   */
+  @Override
+  public void addLast(E item)
+  {
+	  add(item);
+  }
+  
+  /**
+   * Inserts an item at the front of the list unless the list already
+   * contains it.  The first node takes the item if it has room; otherwise
+   * a new first node is started for it.
+   * 
+   * @param item element to be added
+   * @return true if the item was added
+   */
+  @Override
+  public boolean offerFirst(E item)
+  {
+	  if (item == null)
+		  throw new NullPointerException();
+	  if (contains(item))
+		  return false;
+	  Node first = head.next;
+	  if (first != tail && first.count < nodeSize) {
+		  own(first).addItem(0, item);
+	  } else {
+		  Node node = newNode();
+		  node.addItem(item);
+		  link(head, node);
+	  }
+	  if (members != null)
+		  members.add(item);
+	  size++;
+	  modCount++;
+	  return true;
+  }
+  
+  /**
+   * Same as add(E).
+   */
+  @Override
+  public boolean offerLast(E item)
+  {
+	  return add(item);
+  }
+  
+  /**
+   * Removes and returns the first element, or returns null if the list is
+   * empty.  The remaining elements of the first node are left where they
+   * are, and the node is dropped once it is empty.
+   */
+  @Override
+  public E pollFirst()
+  {
+	  Node first = head.next;
+	  if (first == tail)
+		  return null;
+	  first = own(first);
+	  E item = first.get(0);
+	  if (first.count == 1)
+		  unlink(first);
+	  else
+		  first.removeItem(0);
+	  if (members != null)
+		  members.remove(item);
+	  size--;
+	  modCount++;
+	  return item;
+  }
+  
+  /**
+   * Removes and returns the last element, or returns null if the list is
+   * empty.
+   */
+  @Override
+  public E pollLast()
+  {
+	  Node last = tail.previous;
+	  if (last == head)
+		  return null;
+	  last = own(last);
+	  E item = last.get(last.count - 1);
+	  if (last.count == 1)
+		  unlink(last);
+	  else
+		  last.removeItem(last.count - 1);
+	  if (members != null)
+		  members.remove(item);
+	  size--;
+	  modCount++;
+	  return item;
+  }
+  
+  @Override
+  public E removeFirst()
+  {
+	  if (size == 0)
+		  throw new NoSuchElementException();
+	  return pollFirst();
+  }
+  
+  @Override
+  public E removeLast()
+  {
+	  if (size == 0)
+		  throw new NoSuchElementException();
+	  return pollLast();
+  }
+  
+  @Override
+  public E peekFirst()
+  {
+	  return size == 0 ? null : head.next.get(0);
+  }
+  
+  @Override
+  public E peekLast()
+  {
+	  return size == 0 ? null : tail.previous.get(tail.previous.count - 1);
+  }
+  
+  @Override
+  public E getFirst()
+  {
+	  if (size == 0)
+		  throw new NoSuchElementException();
+	  return peekFirst();
+  }
+  
+  @Override
+  public E getLast()
+  {
+	  if (size == 0)
+		  throw new NoSuchElementException();
+	  return peekLast();
+  }
+  
+  @Override
+  public boolean removeFirstOccurrence(Object item)
+  {
+	  return remove(item);
+  }
+  
+  @Override
+  public boolean removeLastOccurrence(Object item)
+  {
+	  int pos = lastIndexOf(item);
+	  if (pos < 0)
+		  return false;
+	  remove(pos);
+	  return true;
+  }
+  
+  /**
+   * Same as offerLast(E), and so as add(E).
+   */
+  @Override
+  public boolean offer(E item)
+  {
+	  return offerLast(item);
+  }
+  
+  @Override
+  public E remove()
+  {
+	  return removeFirst();
+  }
+  
+  @Override
+  public E poll()
+  {
+	  return pollFirst();
+  }
+  
+  @Override
+  public E element()
+  {
+	  return getFirst();
+  }
+  
+  @Override
+  public E peek()
+  {
+	  return peekFirst();
+  }
+  
+  @Override
+  public void push(E item)
+  {
+	  addFirst(item);
+  }
+  
+  @Override
+  public E pop()
+  {
+	  return removeFirst();
+  }
+  
+  @Override
+  public Iterator<E> descendingIterator()
+  {
+	  ListIterator<E> iter = listIterator(size());
+	  return new Iterator<E>() {
+		  @Override
+		  public boolean hasNext()
+		  {
+			  return iter.hasPrevious();
+		  }
+		  
+		  @Override
+		  public E next()
+		  {
+			  return iter.previous();
+		  }
+		  
+		  @Override
+		  public void remove()
+		  {
+			  iter.remove();
+		  }
+	  };
+  }
+
+  /**
+   * Sort all elements in the stout list in the NON-DECREASING order.  The elements
+   * are copied into an array, sorted with the stable mergeSort() method and packed
+   * back into new nodes.  After sorting, all nodes but (possibly) the last one must 
+   * be full of elements.  
+   */
+  public void sort()
+  {
+	  sort(new ElementComparator());
+  }
+  
+  /**
+   * Sort all elements in the stout list in the NON-INCREASING order.  Elements that 
+   * compare equal keep their relative order.  After sorting, all but (possibly) the 
+   * last nodes must be filled with elements.  
+   */
+  public void sortReverse() 
+  {
+	  sort(Comparator.reverseOrder());
+  }
+  
+  /**
+   * Sort all elements in the stout list in the order induced by the given comparator, 
+   * using the stable mergeSort() method.  After sorting, all nodes but (possibly) the 
+   * last one are full.
+   * 
+   * @param comp comparator used in sorting, or null for the natural ordering
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void sort(Comparator<? super E> comp)
+  {
+	  if (comp == null)
+		  comp = new ElementComparator();
+	  SortEvent event = new SortEvent();
+	  event.begin();
+	  
+	  // Create an array to hold all the data elements from the list
+	  E[] sortDataList = (E[]) new Comparable[size];
+	  
+	  int tempIndex = 0;
+	  Node temp = head.next;
+	  
+	  // Traverse through the list and copy all elements to the array
+	  while (temp != tail) {
+		  temp.copyTo(0, sortDataList, tempIndex, temp.count);
+		  tempIndex += temp.count;
+		  temp = temp.next;
+	  }
+	  
+	  mergeSort(sortDataList, comp);
+	  
+	  // Reset the list to be empty and pack the sorted elements back into
+	  // full nodes; the set of elements, and so the membership index, is unchanged
+	  discardNodes();
+	  appendPacked(sortDataList, 0, sortDataList.length);
+	  modCount++;
+	  event.size = size;
+	  event.nodeSize = nodeSize;
+	  event.commit();
+  }
+  
+  /**
+   * Sort all elements in the stout list in the order induced by the given comparator, 
+   * sorting chunks of nodes in parallel on the common ForkJoinPool and merging the 
+   * sorted chunks.  The sort is stable.  Lists smaller than the parallel sort threshold 
+   * are sorted sequentially by sort(Comparator).  After sorting, all nodes but 
+   * (possibly) the last one are full.
+   * 
+   * @param comp comparator used in sorting, or null for the natural ordering
+   */
+  @SuppressWarnings("unchecked")
+  public void parallelSort(Comparator<? super E> comp)
+  {
+	  if (size < parallelSortThreshold) {
+		  sort(comp);
+		  return;
+	  }
+	  if (comp == null)
+		  comp = new ElementComparator();
+	  SortEvent event = new SortEvent();
+	  event.begin();
+	  
+	  // Record every node and the list position of its first element
+	  int nodeCount = 0;
+	  for (Node temp = head.next; temp != tail; temp = temp.next)
+		  nodeCount++;
+	  Node[] nodes = (Node[]) new StoutList.Node[nodeCount];
+	  int[] starts = new int[nodeCount + 1];
+	  int k = 0;
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  nodes[k] = temp;
+		  starts[k + 1] = starts[k] + temp.count;
+		  k++;
+	  }
+	  
+	  E[] sortDataList = (E[]) new Comparable[size];
+	  E[] buffer = (E[]) new Comparable[size];
+	  ForkJoinPool.commonPool().invoke(new SortTask(nodes, starts, 0, nodeCount, buffer, sortDataList, comp));
+	  
+	  // Reset the list to be empty and pack the sorted elements back into full nodes
+	  discardNodes();
+	  appendPacked(sortDataList, 0, sortDataList.length);
+	  modCount++;
+	  event.size = size;
+	  event.nodeSize = nodeSize;
+	  event.parallel = true;
+	  event.commit();
+  }
+  
+  /**
+   * Sets the number of elements below which parallelSort() sorts sequentially.
+   * 
+   * @param threshold minimum list size, and chunk size, for parallel sorting
+   */
+  public void setParallelSortThreshold(int threshold)
+  {
+	  if (threshold < 1)
+		  throw new IllegalArgumentException();
+	  parallelSortThreshold = threshold;
+  }
+  
+  /**
+   * Sets the number of free nodes the list keeps for reuse.  Nodes emptied by
+   * merges, removals and sorts are kept up to this number and handed out again
+   * by splits and appends, so that a list whose size stays about the same
+   * allocates no nodes.  The default is 0, which turns the pool off.
+   * 
+   * @param capacity largest number of pooled nodes
+   */
+  public void setNodePoolCapacity(int capacity)
+  {
+	  if (capacity < 0)
+		  throw new IllegalArgumentException();
+	  poolCapacity = capacity;
+	  for (; pooled > capacity; pooled--)
+		  pool = pool.next;
+  }
+  
+  /**
+   * Returns the number of nodes taken from the node pool.
+   */
+  public long nodePoolHits()
+  {
+	  return poolHits;
+  }
+  
+  /**
+   * Returns the number of nodes allocated because the node pool was empty.
+   */
+  public long nodePoolMisses()
+  {
+	  return poolMisses;
+  }
+  
+  /**
+   * Starts collecting structural metrics, if that is not already the case.
+   * The occupancy histogram is filled from the current nodes and kept up to
+   * date from then on.  While metrics are disabled, the list only pays for
+   * a null check at each counted event.
+   * 
+   * @return the live metrics of this list
+   */
+  public StoutListMetrics enableMetrics()
+  {
+	  if (metrics == null) {
+		  metrics = new StoutListMetrics(nodeSize);
+		  for (Node temp = head.next; temp != tail; temp = temp.next)
+			  metrics.added(temp.count);
+	  }
+	  return metrics;
+  }
+  
+  /**
+   * Stops collecting structural metrics.
+   */
+  public void disableMetrics()
+  {
+	  metrics = null;
+  }
+  
+  /**
+   * Returns the live metrics of this list, or null if they are disabled.
+   */
+  public StoutListMetrics metrics()
+  {
+	  return metrics;
+  }
+  
+  /**
+   * Appends arr[from..to) to the end of the list without any duplicate check.
+   * The last node is topped up first and the remaining elements are copied
+   * into new nodes that are full, except possibly the last one.  The
+   * membership index is not updated.
+   * 
+   * @param arr array holding the elements
+   * @param from index of the first element to append
+   * @param to index after the last element to append
+   */
+  private void appendPacked(E[] arr, int from, int to)
+  {
+	  boolean wasEmpty = head.next == tail;
+	  size += to - from;
+	  
+	  // Top up the last node
+	  Node last = tail.previous;
+	  if (!wasEmpty && last.count < nodeSize && from < to) {
+		  last = own(last);
+		  int n = Math.min(nodeSize - last.count, to - from);
+		  last.addItems(arr, from, n);
+		  from += n;
+	  }
+	  
+	  // Fill new nodes, linking each one after the previous
+	  while (from < to) {
+		  int n = Math.min(nodeSize, to - from);
+		  Node node = newNode();
+		  node.addItems(arr, from, n);
+		  from += n;
+		  
+		  node.previous = last;
+		  node.next = tail;
+		  last.next = node;
+		  tail.previous = node;
+		  if (!wasEmpty)
+			  index.insertAfter(last, node);
+		  last = node;
+	  }
+	  
+	  // An empty list gets its index built in one pass
+	  if (wasEmpty)
+		  index.rebuild();
+  }
+  
+  @Override
+  public Iterator<E> iterator()
+  {
+	  return new StoutListIterator(); 
+  }
+
+  @Override
+  public ListIterator<E> listIterator()
+  {
+	  return new StoutListIterator(); 
+  }
+
+  @Override
+  public ListIterator<E> listIterator(int index)
+  {
+	  return new StoutListIterator(index); 
+  }
+  
+  /**
+   * Returns a spliterator that splits on node boundaries, so parallel streams
+   * over the list hand whole nodes to each worker.  The spliterator binds to
+   * the list when first used and fails fast if the list is modified after that.
+   */
+  @Override
+  public Spliterator<E> spliterator()
+  {
+	  return new StoutListSpliterator();
+  }
+  
+  /**
+   * Returns an immutable view of the current contents of the list in O(1) time.
+   * The view shares its nodes with the list; the list copies a shared node, and
+   * the index path above it, the first time it modifies it, so each snapshot
+   * costs memory in proportion to the nodes modified after it was taken.
+   * 
+   * The view reads only nodes that the list no longer modifies, so it can be
+   * handed to other threads and read while this list keeps changing.
+   * 
+   * @return read-only list of the elements currently in this list
+   */
+  public List<E> snapshot()
+  {
+	  index.flush();
+	  Snapshot view = new Snapshot(index.root, size);
+	  epoch = EPOCHS.incrementAndGet();
+	  return view;
+  }
+  
+  /**
+   * Writes the list to a file node by node, in the format read by
+   * MappedStoutList.open(): a header with the node size and element width,
+   * then for each node its count and its elements encoded by the codec.
+   * 
+   * @param file file to be written, replaced if it exists
+   * @param codec codec used to encode the elements
+   * @throws IOException if the file cannot be written
+   */
+  public void writeTo(Path file, ElementCodec<? super E> codec) throws IOException
+  {
+	  int width = codec.width();
+	  int nodeCount = 0;
+	  for (Node temp = head.next; temp != tail; temp = temp.next)
+		  nodeCount++;
+	  
+	  ByteBuffer buf = ByteBuffer.allocate(Math.max(1 << 16, Integer.BYTES + nodeSize * width)).order(MappedStoutList.ORDER);
+	  buf.putInt(MappedStoutList.MAGIC).putInt(MappedStoutList.VERSION).putInt(nodeSize).putInt(width).putInt(nodeCount).putInt(size);
+	  
+	  try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+		  for (Node temp = head.next; temp != tail; temp = temp.next) {
+			  // Flush the buffer when the next node record does not fit
+			  if (buf.remaining() < Integer.BYTES + temp.count * width)
+				  flush(channel, buf);
+			  buf.putInt(temp.count);
+			  for (int i = 0; i < temp.count; i++) {
+				  codec.encode(temp.get(i), buf, buf.position());
+				  buf.position(buf.position() + width);
+			  }
+		  }
+		  flush(channel, buf);
+	  }
+  }
+  
+  /**
+   * Writes out the contents of a buffer and clears it.
+   */
+  private static void flush(FileChannel channel, ByteBuffer buf) throws IOException
+  {
+	  buf.flip();
+	  while (buf.hasRemaining())
+		  channel.write(buf);
+	  buf.clear();
+  }
+  
+  /**
+   * 
+   * Checks if the StoutList contains the specified item.
+   * 
+   * If the list keeps a membership index, the item is looked up there.
+   * Otherwise this method traverses the nodes of the StoutList, checking each 
+   * element in the nodes' data arrays. If it finds an element that matches the 
+   * specified item, it returns true. Otherwise, it returns false.
+   * 
+   * @param item the element whose presence in this list is to be tested
+   * @return true if this list contains the specified element, false otherwise
+   */
+  @Override
+  public boolean contains(Object item) {
+	  if (size < 1 || item == null) 
+		  return false;
+	  
+	  if (members != null)
+		  return members.contains(item);
+	  
+	  Node temp = head.next;  
+	  while(temp != tail) {
+		  for(int i = 0; i < temp.count; i++) {
+			  if(temp.get(i).equals(item))
+				  return true;
+		  }
+		  temp = temp.next;
+	  }
+	  return false;
+  }
+  
+  /**
+   * Returns the position of the first occurrence of the item, scanning the
+   * nodes from the front.  With a membership index, an absent item is
+   * answered without a scan.
+   * 
+   * @param item element to be located
+   * @return its position, or -1 if the list does not contain it
+   */
+  @Override
+  public int indexOf(Object item)
+  {
+	  if (item == null || (members != null && !members.contains(item)))
+		  return -1;
+	  int pos = 0;
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  for (int i = 0; i < temp.count; i++) {
+			  if (temp.get(i).equals(item))
+				  return pos + i;
+		  }
+		  pos += temp.count;
+	  }
+	  return -1;
+  }
+  
+  /**
+   * Returns the position of the last occurrence of the item, scanning the
+   * nodes from the back.  With a membership index, an absent item is
+   * answered without a scan.
+   * 
+   * @param item element to be located
+   * @return its position, or -1 if the list does not contain it
+   */
+  @Override
+  public int lastIndexOf(Object item)
+  {
+	  if (item == null || (members != null && !members.contains(item)))
+		  return -1;
+	  int pos = size;
+	  for (Node temp = tail.previous; temp != head; temp = temp.previous) {
+		  pos -= temp.count;
+		  for (int i = temp.count - 1; i >= 0; i--) {
+			  if (temp.get(i).equals(item))
+				  return pos + i;
+		  }
+	  }
+	  return -1;
+  }
+  
+  /**
+   * Returns the elements in an array, copied a node at a time.
+   */
+  @Override
+  public Object[] toArray()
+  {
+	  Object[] arr = new Object[size];
+	  int k = 0;
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  temp.copyTo(0, arr, k, temp.count);
+		  k += temp.count;
+	  }
+	  return arr;
+  }
+  
+  /**
+   * Returns the elements in the given array if they fit, or else in a new
+   * array of the same type, copied a node at a time.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T[] toArray(T[] arr)
+  {
+	  if (arr.length < size)
+		  arr = (T[]) Array.newInstance(arr.getClass().getComponentType(), size);
+	  int k = 0;
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  temp.copyTo(0, arr, k, temp.count);
+		  k += temp.count;
+	  }
+	  if (arr.length > size)
+		  arr[size] = null;
+	  return arr;
+  }
+  
+  /**
+   * Compares the elements node by node with those of another list.
+   */
+  @Override
+  public boolean equals(Object o)
+  {
+	  if (o == this)
+		  return true;
+	  if (!(o instanceof List))
+		  return false;
+	  List<?> other = (List<?>) o;
+	  if (other.size() != size)
+		  return false;
+	  Iterator<?> iter = other.iterator();
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  for (int i = 0; i < temp.count; i++) {
+			  if (!iter.hasNext() || !temp.get(i).equals(iter.next()))
+				  return false;
+		  }
+	  }
+	  return !iter.hasNext();
+  }
+  
+  @Override
+  public int hashCode()
+  {
+	  int hash = 1;
+	  for (Node temp = head.next; temp != tail; temp = temp.next) {
+		  for (int i = 0; i < temp.count; i++)
+			  hash = 31 * hash + temp.get(i).hashCode();
+	  }
+	  return hash;
+  }
+  
+  /**
+   * Returns a string representation of this list showing
+   * the internal structure of the nodes.
+   * 
+   * @return a string representation of the list
+   */
+  public String toStringInternal()
+  {
+    return toStringInternal(null);
+  }
+
+  /**
+   * Returns a string representation of this list showing the internal
+   * structure of the nodes and the position of the iterator.
+   *
+   * @param iter an iterator for this list
+   * @return a string representation of the list
+   */
+  public String toStringInternal(ListIterator<E> iter) 
+  {
+      int count = 0;
+      int position = -1;
+      if (iter != null) {
           position = iter.nextIndex();
       }
 
@@ -407,7 +1948,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
       Node current = head.next;
       while (current != tail) {
           sb.append('(');
-          E data = current.data[0];
+          E data = current.get(0);
           if (data == null) {
               sb.append("-");
           } else {
@@ -421,7 +1962,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 
           for (int i = 1; i < nodeSize; ++i) {
              sb.append(", ");
-              data = current.data[i];
+              data = current.get(i);
               if (data == null) {
                   sb.append("-");
               } else {
@@ -450,16 +1991,23 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
   
   /**
    * Node type for this list.  Each node holds a maximum
-   * of nodeSize elements in an array.  Empty slots
-   * are null.
+   * of nodeSize elements in an array used as a ring buffer:
+   * the elements run from slot start, wrapping around the
+   * end of the array.  Empty slots are null.  Elements are
+   * reached by offset through get() and set().
    */
-  private class Node
+  class Node
   {
     /**
      * Array of actual data elements.
      */
     // Unchecked warning unavoidable.
-    public E[] data = (E[]) new Comparable[nodeSize];
+    public E[] data;
+    
+    /**
+     * Slot of data holding the element at offset 0.
+     */
+    int start;
     
     /**
      * Link to next node.
@@ -476,7 +2024,123 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
      * equal to the number of elements in this node.
      */
     public int count;
+    
+    /**
+     * Parent and children of this node in the positional index.
+     */
+    Node parent, left, right;
+    
+    /**
+     * Number of elements stored in the index subtree rooted at this node.
+     */
+    int weight;
+    
+    /**
+     * Random priority that keeps the index balanced.
+     */
+    int priority;
+    
+    /**
+     * Whether this node is currently part of the positional index.
+     */
+    boolean indexed;
+    
+    /**
+     * Epoch in which this node was created, or 0 if it came from another
+     * list while it was shared with a snapshot of that list.
+     */
+    long epoch = StoutList.this.epoch;
+    
+    /**
+     * List whose chain holds this node.  It changes when splitAt() or
+     * spliceIn() hands the node to another list.
+     */
+    StoutList<E> list = StoutList.this;
+    
+    /**
+     * Creates an empty node.
+     */
+    Node()
+    {
+      data = (E[]) new Comparable[nodeSize];
+    }
+    
+    /**
+     * Makes this empty node a copy of the given node, with its own data array
+     * but the same links, index fields and count.
+     * @param node node to be copied
+     */
+    void copyFrom(Node node)
+    {
+      node.copyTo(0, data, 0, node.count);
+      start = 0;
+      next = node.next;
+      previous = node.previous;
+      count = node.count;
+      parent = node.parent;
+      left = node.left;
+      right = node.right;
+      weight = node.weight;
+      priority = node.priority;
+      indexed = node.indexed;
+    }
 
+    /**
+     * Returns the slot of data holding the element at the given offset.
+     * Precondition: 0 <= offset < 2 * nodeSize
+     */
+    private int slot(int offset)
+    {
+      int i = start + offset;
+      return i < nodeSize ? i : i - nodeSize;
+    }
+    
+    /**
+     * Returns the element at the given offset, or null if the offset is
+     * not below count.
+     * Precondition: 0 <= offset < nodeSize
+     */
+    E get(int offset)
+    {
+      return data[slot(offset)];
+    }
+    
+    /**
+     * Replaces the element at the given offset.
+     * Precondition: 0 <= offset < nodeSize
+     */
+    void set(int offset, E item)
+    {
+      data[slot(offset)] = item;
+    }
+    
+    /**
+     * Copies n elements, starting at the given offset, into an array.
+     * Precondition: offset + n <= count
+     */
+    void copyTo(int offset, Object[] dest, int destPos, int n)
+    {
+      int from = slot(offset);
+      int first = Math.min(n, nodeSize - from);
+      System.arraycopy(data, from, dest, destPos, first);
+      System.arraycopy(data, 0, dest, destPos + first, n - first);
+    }
+    
+    /**
+     * Adds n elements of an array after the last element of this node.
+     * Precondition: count + n <= nodeSize
+     */
+    void addItems(E[] src, int srcPos, int n)
+    {
+      int to = slot(count);
+      int first = Math.min(n, nodeSize - to);
+      System.arraycopy(src, srcPos, data, to, first);
+      System.arraycopy(src, srcPos + first, data, 0, n - first);
+      count += n;
+      if (indexed)
+    	  list.index.resized(this, n);
+    }
+    
     /**
      * Adds an item to this node at the first available offset.
      * Precondition: count < nodeSize
@@ -488,17 +2152,20 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
       {
         return;
       }
-      data[count++] = item;
+      set(count++, item);
+      if (indexed)
+    	  list.index.resized(this, 1);
       //useful for debugging
       //      System.out.println("Added " + item.toString() + " at index " + count + " to node "  + Arrays.toString(data));
     }
   
     /**
      * Adds an item to this node at the indicated offset, shifting
-     * elements to the right as necessary.
+     * the elements before or after it, whichever are fewer, to make
+     * room.  Adding at either end takes O(1) time.
      * 
      * Precondition: count < nodeSize
-     * @param offset array index at which to put the new element
+     * @param offset offset at which to put the new element
      * @param item element to be added
      */
     void addItem(int offset, E item)
@@ -507,39 +2174,100 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
       {
     	  return; // Node is full, so exit without adding
       }
-      // Shift elements to the right to make space for the new item
-      for (int i = count - 1; i >= offset; --i)
-      {
-        data[i + 1] = data[i];
+      if (offset < count - offset) {
+    	  // Move the start back a slot and shift the leading elements into it
+    	  start = start == 0 ? nodeSize - 1 : start - 1;
+    	  for (int i = 0; i < offset; ++i)
+    		  set(i, get(i + 1));
+      } else {
+    	  // Shift the trailing elements to the right
+    	  for (int i = count; i > offset; --i)
+    		  set(i, get(i - 1));
       }
       ++count;
-      data[offset] = item;
+      set(offset, item);
+      if (indexed)
+    	  list.index.resized(this, 1);
       //useful for debugging 
       //System.out.println("Added " + item.toString() + " at index " + offset + " to node: "  + Arrays.toString(data));
     }
 
     /**
      * Deletes an element from this node at the indicated offset, 
-     * shifting elements left as necessary.
+     * shifting the elements before or after it, whichever are fewer,
+     * to close the gap.  Removing at either end takes O(1) time.
      * Precondition: 0 <= offset < count
      * @param offset
      */
     void removeItem(int offset)
     {
-      E item = data[offset];
-      // Shift elements to the left to fill the gap left by the removed item
-      for (int i = offset + 1; i < nodeSize; ++i)
-      {
-        data[i - 1] = data[i];
+      if (offset < count - 1 - offset) {
+    	  // Shift the leading elements to the right and move the start up a slot
+    	  for (int i = offset; i > 0; --i)
+    		  set(i, get(i - 1));
+    	  set(0, null);
+    	  start = start == nodeSize - 1 ? 0 : start + 1;
+      } else {
+    	  // Shift the trailing elements to the left and clear the last slot
+    	  for (int i = offset + 1; i < count; ++i)
+    		  set(i - 1, get(i));
+    	  set(count - 1, null);
       }
-      data[count - 1] = null; // Clear the last slot
       --count; // Decrement the count of elements in this node
-    }    
+      if (indexed)
+    	  list.index.resized(this, -1);
+    }
+    
+    /**
+     * Moves the elements at offsets from..count-1 of this node to the end
+     * of the given node, keeping their order.
+     * Precondition: dest.count + (count - from) <= nodeSize
+     * @param from offset of the first element to move
+     * @param dest node receiving the elements
+     */
+    void moveTo(int from, Node dest)
+    {
+      int moved = count - from;
+      for (int i = 0; i < moved; ++i) {
+    	  dest.set(dest.count + i, get(from + i));
+    	  set(from + i, null);
+      }
+      count = from;
+      dest.count += moved;
+      if (indexed)
+    	  list.index.resized(this, -moved);
+      if (dest.indexed)
+    	  dest.list.index.resized(dest, moved);
+    }
+    
+    /**
+     * Moves the first n elements of this node to the end of the given node,
+     * keeping their order.
+     * Precondition: n <= count and dest.count + n <= nodeSize
+     * @param dest node receiving the elements
+     * @param n number of elements to move
+     */
+    void shiftTo(Node dest, int n)
+    {
+      for (int i = 0; i < n; ++i) {
+    	  dest.set(dest.count + i, get(i));
+    	  set(i, null);
+      }
+      start = (start + n) % nodeSize;
+      count -= n;
+      dest.count += n;
+      if (indexed)
+    	  list.index.resized(this, -n);
+      if (dest.indexed)
+    	  dest.list.index.resized(dest, n);
+    }
   }
 
   /**
    * An iterator for the StoutList that allows forward and backward traversal, 
-   * as well as modification of the list during iteration.
+   * as well as modification of the list during iteration.  The iterator keeps
+   * a cursor on the node and offset of the next element, so moving is O(1)
+   * and modifications are applied to the nodes in place.
    */
   private class StoutListIterator implements ListIterator<E>
   {
@@ -555,40 +2283,33 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 	int currentPosition;
 	
 	/**
-	 * Array to store the list's data for easier iteration
+	 * Node holding the element at currentPosition, or the tail if the
+	 * iterator is at the end of the list
+	 */
+	Node node;
+	
+	/**
+	 * Offset of the element at currentPosition within node
 	 */
-	public E[] dataList;
+	int offset;
 	
 	/**
 	 * Keeps track of the last action performed (NEXT, PREVIOUS, or -1 if none)
 	 */
 	int lastAction;
-	  
-	 /**
-     * Sets up the dataList array with the current elements of the list.
-     */
-	private void setup() {
-		dataList = (E[]) new Comparable[size];
-		
-		int tempIndex = 0;
-		Node temp = head.next;
-		while (temp != tail) {
-			for (int i = 0; i < temp.count; i++) {
-				dataList[tempIndex] = temp.data[i];
-				tempIndex++;
-			}
-			temp = temp.next;
-		}
-	}
+	
+	/**
+	 * Value of modCount the iterator expects, used to detect changes made
+	 * to the list behind its back
+	 */
+	int expectedModCount;
 	
 	/**
      * Default constructor initializes the iterator to the start of the list.
      */
     public StoutListIterator()
     {
-    	currentPosition = 0;
-    	lastAction = -1;
-    	setup();
+    	this(0);
     }
 
     /**
@@ -597,9 +2318,37 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
      */
     public StoutListIterator(int pos)
     {
+    	if (pos < 0 || pos > size)
+    		throw new IndexOutOfBoundsException();
+    	NodeInfo nodeInfo = find(pos);
+    	node = nodeInfo.node;
+    	offset = nodeInfo.off;
     	currentPosition = pos;
     	lastAction = -1;
-    	setup();
+    	expectedModCount = modCount;
+    }
+    
+    /**
+     * Moves the cursor to the given node and offset, stepping to the next
+     * node if the offset is past the last element.
+     */
+    private void moveTo(Node newNode, int newOffset)
+    {
+    	if (newNode != tail && newOffset == newNode.count) {
+    		newNode = newNode.next;
+    		newOffset = 0;
+    	}
+    	node = newNode;
+    	offset = newOffset;
+    }
+    
+    /**
+     * Throws an exception if the list was modified other than through this iterator.
+     */
+    private void checkForComodification()
+    {
+    	if (modCount != expectedModCount)
+    		throw new ConcurrentModificationException();
     }
 
     @Override
@@ -615,29 +2364,35 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
     @Override
     public E next()
     {
+    	checkForComodification();
     	if (!hasNext())
     		throw new NoSuchElementException();
     	lastAction = NEXT;
-    	return dataList[currentPosition++];
+    	E item = node.get(offset);
+    	currentPosition++;
+    	moveTo(node, offset + 1);
+    	return item;
     }
 
     @Override
     public void remove()
     {
+    	checkForComodification();
     	if (lastAction == NEXT) {
-    		StoutList.this.remove(currentPosition - 1);
-    		setup();
-    		lastAction = -1;
+    		// The element just returned sits right before the cursor
+    		if (offset == 0)
+    			removeAt(node.previous, node.previous.count - 1);
+    		else
+    			removeAt(node, offset - 1);
     		currentPosition--;
-    		if(currentPosition < 0)
-    			currentPosition = 0;
-    		} else if (lastAction == PREVIOUS) {
-    			StoutList.this.remove(currentPosition - 1);
-        		setup();
-        		lastAction = -1;
-    		} else {
-    			throw new IllegalStateException();
-    		}
+    	} else if (lastAction == PREVIOUS) {
+    		removeAt(node, offset);
+    	} else {
+    		throw new IllegalStateException();
+    	}
+    	moveTo(found.node, found.off);
+    	expectedModCount = modCount;
+    	lastAction = -1;
     }
     
     @Override
@@ -656,11 +2411,17 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
     
     @Override
     public E previous() {
+    	checkForComodification();
     	if (!hasPrevious())
     		throw new NoSuchElementException();
     	lastAction = PREVIOUS;
+    	if (offset == 0) {
+    		node = node.previous;
+    		offset = node.count;
+    	}
+    	offset--;
     	currentPosition--;
-    	return dataList[currentPosition];
+    	return node.get(offset);
     }
     
     @Override
@@ -670,26 +2431,46 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
     
     @Override
     public void set(E o1) {
+    	checkForComodification();
+    	if (o1 == null)
+    		throw new NullPointerException();
+		Node target;
+		int targetOffset;
 		if (lastAction == NEXT) {
-			NodeInfo nodeInfo = find(currentPosition - 1);
-			nodeInfo.node.data[nodeInfo.off] = o1;
-			dataList[currentPosition - 1] = o1;
+			if (offset == 0) {
+				// Copying the target may also copy the cursor node
+				target = own(node.previous);
+				targetOffset = target.count - 1;
+				node = target.next;
+			} else {
+				target = node = own(node);
+				targetOffset = offset - 1;
+			}
 		} else if (lastAction == PREVIOUS) {
-			NodeInfo nodeInfo = find(currentPosition);
-			nodeInfo.node.data[nodeInfo.off] = o1;
-			dataList[currentPosition] = o1;
+			target = node = own(node);
+			targetOffset = offset;
 		} else {
 			throw new IllegalStateException();
 		}
+		expectedModCount = modCount;
+		
+		if (members != null) {
+			members.remove(target.get(targetOffset));
+			members.add(o1);
+		}
+		target.set(targetOffset, o1);
     }
     
     @Override
     public void add(E o1) {
+    	checkForComodification();
     	if (o1 == null)
     		throw new NullPointerException();
-    	StoutList.this.add(currentPosition, o1);
+    	insertAt(node, offset, o1);
     	currentPosition++;
-    	setup();
+    	// The cursor goes right after the new element
+    	moveTo(found.node, found.off + 1);
+    	expectedModCount = modCount;
     	lastAction = -1;
     }
   
@@ -697,17 +2478,333 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
   
 
   /**
-   * Sort an array arr[] using the insertion sort algorithm in the NON-DECREASING order. 
+   * A spliterator over a range of list positions.  It walks the node chain
+   * directly and splits the range at the node boundary closest to its middle,
+   * found through the positional index, so both halves report exact sizes.
+   */
+  private class StoutListSpliterator implements Spliterator<E>
+  {
+	/**
+	 * Node holding the next element, or null until the spliterator is bound
+	 */
+	Node node;
+	
+	/**
+	 * Offset of the next element within node
+	 */
+	int offset;
+	
+	/**
+	 * List position of the next element
+	 */
+	int position;
+	
+	/**
+	 * List position after the last element covered
+	 */
+	int end;
+	
+	/**
+	 * Value of modCount when the spliterator was bound
+	 */
+	int expectedModCount;
+	
+	/**
+	 * Creates a spliterator over the whole list that binds on first use.
+	 */
+	StoutListSpliterator()
+	{
+	}
+	
+	/**
+	 * Creates a bound spliterator over the positions from..end-1, the first of
+	 * which is at offset 0 of the given node.
+	 */
+	StoutListSpliterator(Node node, int from, int end, int expectedModCount)
+	{
+		this.node = node;
+		this.position = from;
+		this.end = end;
+		this.expectedModCount = expectedModCount;
+	}
+	
+	/**
+	 * Binds an unbound spliterator to the current contents of the list.
+	 */
+	private void bind()
+	{
+		if (node == null) {
+			index.flush();
+			node = head.next;
+			end = size;
+			expectedModCount = modCount;
+		}
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super E> action)
+	{
+		if (action == null)
+			throw new NullPointerException();
+		bind();
+		if (position >= end)
+			return false;
+		E item = node.get(offset++);
+		position++;
+		if (offset == node.count) {
+			node = node.next;
+			offset = 0;
+		}
+		action.accept(item);
+		if (modCount != expectedModCount)
+			throw new ConcurrentModificationException();
+		return true;
+	}
+	
+	@Override
+	public void forEachRemaining(Consumer<? super E> action)
+	{
+		if (action == null)
+			throw new NullPointerException();
+		bind();
+		Node temp = node;
+		int off = offset;
+		int remaining = end - position;
+		
+		// Hand out each node's elements in turn
+		while (remaining > 0) {
+			int n = Math.min(temp.count - off, remaining);
+			for (int i = off; i < off + n; i++)
+				action.accept(temp.get(i));
+			remaining -= n;
+			temp = temp.next;
+			off = 0;
+		}
+		node = temp;
+		offset = 0;
+		position = end;
+		if (modCount != expectedModCount)
+			throw new ConcurrentModificationException();
+	}
+	
+	@Override
+	public Spliterator<E> trySplit()
+	{
+		bind();
+		if (end - position < 2)
+			return null;
+		
+		// Cut at the start of the node holding the middle element, or of the
+		// next node if that one is where this spliterator currently is
+		Node middle = index.nodeAt(position + (end - position) / 2);
+		int start = index.startOf(middle);
+		if (start <= position) {
+			start += middle.count;
+			middle = middle.next;
+		}
+		if (start >= end)
+			return null;
+		
+		// Hand out the prefix and keep the suffix
+		StoutListSpliterator prefix = new StoutListSpliterator(node, position, start, expectedModCount);
+		prefix.offset = offset;
+		node = middle;
+		offset = 0;
+		position = start;
+		return prefix;
+	}
+	
+	@Override
+	public long estimateSize()
+	{
+		bind();
+		return end - position;
+	}
+	
+	@Override
+	public int characteristics()
+	{
+		return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+	}
+  }
+  
+  /**
+   * Immutable view returned by snapshot().  The view walks the positional index
+   * from the root it was given and reads only the tree links, counts, weights and
+   * data of the nodes, never the chain or parent links, which keep changing with
+   * the live list.
+   */
+  private class Snapshot extends AbstractList<E>
+  {
+	/**
+	 * Root of the index at the time of the snapshot, or null if it was empty.
+	 */
+	private final Node root;
+	
+	/**
+	 * Number of elements in the snapshot.
+	 */
+	private final int size;
+	
+	Snapshot(Node root, int size)
+	{
+		this.root = root;
+		this.size = size;
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	@Override
+	public E get(int pos)
+	{
+		if (pos < 0 || pos >= size)
+			throw new IndexOutOfBoundsException();
+		Node temp = root;
+		while (true) {
+			int leftWeight = index.weight(temp.left);
+			if (pos < leftWeight) {
+				temp = temp.left;
+			} else if (pos < leftWeight + temp.count) {
+				return temp.get(pos - leftWeight);
+			} else {
+				pos -= leftWeight + temp.count;
+				temp = temp.right;
+			}
+		}
+	}
+	
+	/**
+	 * Returns an iterator that visits the nodes in order, keeping the path of
+	 * pending ancestors on a stack.
+	 */
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new Iterator<E>() {
+			private final ArrayDeque<Node> pending = new ArrayDeque<>();
+			private Node node;
+			private int offset;
+			
+			{
+				descend(root);
+				advance();
+			}
+			
+			private void descend(Node temp)
+			{
+				for (; temp != null; temp = temp.left)
+					pending.push(temp);
+			}
+			
+			private void advance()
+			{
+				node = pending.poll();
+				offset = 0;
+				if (node != null)
+					descend(node.right);
+			}
+			
+			@Override
+			public boolean hasNext()
+			{
+				return node != null;
+			}
+			
+			@Override
+			public E next()
+			{
+				if (node == null)
+					throw new NoSuchElementException();
+				E item = node.get(offset++);
+				if (offset == node.count)
+					advance();
+				return item;
+			}
+		};
+	}
+  }
+  
+  /**
+   * Sort an array arr[] using a stable merge sort in the order given by the comparator.
+   * Short ranges are handed to insertionSort(), and ranges that are already in order
+   * are copied without merging, so presorted input takes linear time.
+   * @param arr   array storing elements from the list 
+   * @param comp  comparator used in sorting 
+   */
+  private void mergeSort(E[] arr, Comparator<? super E> comp)
+  {
+	  E[] buffer = arr.clone();
+	  mergeSort(buffer, arr, 0, arr.length, comp);
+  }
+  
+  /**
+   * Sorts dest[lo..hi) using src[lo..hi), which holds the same elements, as scratch space.
+   * @param src   scratch array
+   * @param dest  array to be sorted
+   * @param lo    index of the first element of the range
+   * @param hi    index after the last element of the range
+   * @param comp  comparator used in sorting 
+   */
+  private void mergeSort(E[] src, E[] dest, int lo, int hi, Comparator<? super E> comp)
+  {
+	  if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+		  insertionSort(dest, lo, hi, comp);
+		  return;
+	  }
+	  
+	  // Sort both halves into src, with the roles of the arrays swapped
+	  int mid = (lo + hi) >>> 1;
+	  mergeSort(dest, src, lo, mid, comp);
+	  mergeSort(dest, src, mid, hi, comp);
+	  
+	  // If the halves are already in order, there is nothing to merge
+	  if (comp.compare(src[mid - 1], src[mid]) <= 0) {
+		  System.arraycopy(src, lo, dest, lo, hi - lo);
+		  return;
+	  }
+	  merge(src, dest, lo, mid, hi, comp);
+  }
+  
+  /**
+   * Merges the sorted ranges src[lo..mid) and src[mid..hi) into dest[lo..hi).  On ties
+   * the element of the left range goes first, which keeps the merge stable.
+   * @param src   array holding the two sorted ranges
+   * @param dest  array receiving the merged range
+   * @param lo    index of the first element of the left range
+   * @param mid   index of the first element of the right range
+   * @param hi    index after the last element of the right range
+   * @param comp  comparator used in sorting 
+   */
+  private void merge(E[] src, E[] dest, int lo, int mid, int hi, Comparator<? super E> comp)
+  {
+	  int i = lo;
+	  int j = mid;
+	  for (int k = lo; k < hi; k++) {
+		  if (j >= hi || (i < mid && comp.compare(src[i], src[j]) <= 0))
+			  dest[k] = src[i++];
+		  else
+			  dest[k] = src[j++];
+	  }
+  }
+
+  /**
+   * Sort arr[lo..hi) using the insertion sort algorithm in the order given by the comparator. 
    * @param arr   array storing elements from the list 
+   * @param lo    index of the first element of the range
+   * @param hi    index after the last element of the range
    * @param comp  comparator used in sorting 
    */
-  private void insertionSort(E[] arr, Comparator<? super E> comp)
+  private void insertionSort(E[] arr, int lo, int hi, Comparator<? super E> comp)
   {
-	  for (int i = 0; i < arr.length; i++) {
+	  for (int i = lo; i < hi; i++) {
 		  E key = arr[i];
 		  int j = i - 1;
 		  
-		  while (j >= 0 && comp.compare(arr[j], key) > 0) {
+		  while (j >= lo && comp.compare(arr[j], key) > 0) {
 			  arr[j + 1] = arr[j];
 			  j--;
 		  }
@@ -716,23 +2813,64 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
   }
   
   /**
-   * Sort arr[] using the bubble sort algorithm in the NON-INCREASING order. For a 
-   * description of bubble sort please refer to Section 6.1 in the project description. 
-   * You must use the compareTo() method from an implementation of the Comparable 
-   * interface by the class E or ? super E. 
-   * @param arr  array holding elements from the list
+   * Fork-join task sorting the elements of a run of consecutive nodes.  Runs
+   * larger than the parallel sort threshold are split in half by node and the
+   * halves sorted in parallel, with the roles of the two arrays swapped, before
+   * being merged.  Smaller runs are copied out of their nodes and sorted
+   * sequentially by mergeSort().
    */
-  private void bubbleSort(E[] arr)
+  @SuppressWarnings("serial")
+  private class SortTask extends RecursiveAction
   {
-	  int n = arr.length;
-	  for (int i = 0; i < n - 1; i++) {
-		  for (int j = 0; j < n - i - 1; j++) {
-			  if(arr[j].compareTo(arr[j + 1]) < 0) {
-				  E temp = arr[j];
-				  arr[j] = arr[j + 1];
-				  arr[j + 1] = temp;
-			  }
+	  private final Node[] nodes;
+	  private final int[] starts;
+	  private final int first, last;
+	  private final E[] src, dest;
+	  private final Comparator<? super E> comp;
+	  
+	  /**
+	   * @param nodes  all nodes of the list in order
+	   * @param starts list position of the first element of each node
+	   * @param first  index of the first node of the run
+	   * @param last   index after the last node of the run
+	   * @param src    scratch array
+	   * @param dest   array receiving the sorted run at the run's positions
+	   * @param comp   comparator used in sorting
+	   */
+	  SortTask(Node[] nodes, int[] starts, int first, int last, E[] src, E[] dest, Comparator<? super E> comp)
+	  {
+		  this.nodes = nodes;
+		  this.starts = starts;
+		  this.first = first;
+		  this.last = last;
+		  this.src = src;
+		  this.dest = dest;
+		  this.comp = comp;
+	  }
+	  
+	  @Override
+	  protected void compute()
+	  {
+		  int lo = starts[first];
+		  int hi = starts[last];
+		  if (hi - lo <= parallelSortThreshold || last - first < 2) {
+			  // Copy the run out of its nodes and sort it sequentially
+			  for (int i = first; i < last; i++)
+				  nodes[i].copyTo(0, src, starts[i], nodes[i].count);
+			  System.arraycopy(src, lo, dest, lo, hi - lo);
+			  mergeSort(src, dest, lo, hi, comp);
+			  return;
 		  }
+		  
+		  int middle = (first + last) >>> 1;
+		  invokeAll(new SortTask(nodes, starts, first, middle, dest, src, comp),
+				  new SortTask(nodes, starts, middle, last, dest, src, comp));
+		  
+		  int mid = starts[middle];
+		  if (comp.compare(src[mid - 1], src[mid]) <= 0)
+			  System.arraycopy(src, lo, dest, lo, hi - lo);
+		  else
+			  merge(src, dest, lo, mid, hi, comp);
 	  }
   }
   
@@ -741,7 +2879,7 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
    * This class is used to encapsulate a node and its offset position 
    * within the node, which is helpful during various list operations.
    */
-  private class NodeInfo{
+  class NodeInfo{
 	  
 	  public Node node;
 	  
@@ -754,33 +2892,1026 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
   }
   
   /**
-   * Finds the node and its offset for a given position in the list.
+   * Finds the node and its offset for a given position in the list.  A
+   * position in the finger node or one of its neighbours is found in O(1)
+   * time, so runs of operations at nearby positions do not search at all;
+   * otherwise the lookup descends the positional index in O(log n) time and
+   * moves the finger to the node found.  A position equal to size() yields
+   * the tail with offset 0.
+   * 
+   * The returned NodeInfo is shared by all calls to find(), so its contents
+   * are only valid until the next lookup.
    * 
    * @param pos the position in the list
    * @return a NodeInfo object encapsulating the node and its offset for the given position
    */
   private NodeInfo find(int pos) {
-	  // Start from the first node after the head
-	  Node temp = head.next;
+	  // Positions past the last element belong to the tail
+	  if (pos >= size) {
+		  found.node = tail;
+		  found.off = 0;
+		  return found;
+	  }
 	  
-	  // Current position in the list
-	  int currPos = 0;
+	  // Try the finger and the nodes next to it
+	  if (fingerModCount == modCount) {
+		  Node temp = finger;
+		  int start = fingerStart;
+		  int hops = 1;
+		  if (pos >= start + temp.count && temp.next != tail) {
+			  start += temp.count;
+			  temp = temp.next;
+			  hops++;
+		  } else if (pos < start && temp.previous != head) {
+			  temp = temp.previous;
+			  start -= temp.count;
+			  hops++;
+		  }
+		  if (pos >= start && pos < start + temp.count) {
+			  setFinger(temp, start);
+			  found.node = temp;
+			  found.off = pos - start;
+			  if (metrics != null)
+				  metrics.found(hops);
+			  return found;
+		  }
+	  }
 	  
-	  // Traverse the list until we reach the tail
+	  // Descend from the root, skipping left subtrees and nodes that end before pos
+	  index.flush();
+	  Node temp = index.root;
+	  int start = 0;
+	  int hops = 1;
+	  while (true) {
+		  int leftWeight = index.weight(temp.left);
+		  if (pos - start < leftWeight) {
+			  temp = temp.left;
+			  hops++;
+		  } else if (pos - start < leftWeight + temp.count) {
+			  start += leftWeight;
+			  setFinger(temp, start);
+			  found.node = temp;
+			  found.off = pos - start;
+			  if (metrics != null)
+				  metrics.found(hops);
+			  return found;
+		  } else {
+			  hops++;
+			  start += leftWeight + temp.count;
+			  temp = temp.right;
+		  }
+	  }
+  }
+  
+  /**
+   * Returns the list position of the element at the given node and offset
+   * when it follows from the finger, or -1 if it would take a lookup.
+   * 
+   * @param node node holding the element, or the tail
+   * @param offset offset of the element within the node
+   */
+  private int positionOf(Node node, int offset) {
+	  if (node == tail)
+		  return size + offset;
+	  if (fingerModCount != modCount)
+		  return -1;
+	  if (node == finger)
+		  return fingerStart + offset;
+	  if (node == finger.next)
+		  return fingerStart + finger.count + offset;
+	  if (node == finger.previous)
+		  return fingerStart - node.count + offset;
+	  return -1;
+  }
+  
+  /**
+   * Moves the finger to a node whose first element is at the given position.
+   */
+  private void setFinger(Node node, int start) {
+	  finger = node;
+	  fingerStart = start;
+	  fingerModCount = modCount;
+  }
+  
+  /**
+   * Inserts a node into the chain (and the positional index) right after
+   * the given node.
+   * 
+   * @param prev node after which to insert, possibly the head
+   * @param node node to be inserted
+   */
+  private void link(Node prev, Node node) {
+	  node.previous = prev;
+	  node.next = prev.next;
+	  prev.next.previous = node;
+	  prev.next = node;
+	  index.insertAfter(prev, node);
+  }
+  
+  /**
+   * Removes a node from the chain and from the positional index.
+   * 
+   * @param node node to be removed
+   */
+  private void unlink(Node node) {
+	  index.remove(node);
+	  node.previous.next = node.next;
+	  node.next.previous = node.previous;
+	  node.next = null;
+	  node.previous = null;
+	  recycle(node);
+  }
+  
+  /**
+   * Empties the chain, the positional index and the size, recycling the nodes.
+   * The membership index is left alone.
+   */
+  private void discardNodes() {
+	  Node temp = head.next;
 	  while (temp != tail) {
-		  // If the current position plus the count of elements in the current node is less than or equal to the target position
-		  if (currPos + temp.count <= pos) {
-			  // Move to the next node
-			  currPos += temp.count;
-			  temp = temp.next;
-			  continue;
+		  Node next = temp.next;
+		  recycle(temp);
+		  temp = next;
+	  }
+	  head.next = tail;
+	  tail.previous = head;
+	  index.clear();
+	  size = 0;
+  }
+  
+  /**
+   * Returns an empty node of the current epoch, taken from the pool if it has one.
+   */
+  private Node newNode() {
+	  if (pool == null) {
+		  poolMisses++;
+		  return new Node();
+	  }
+	  Node node = pool;
+	  pool = node.next;
+	  pooled--;
+	  poolHits++;
+	  node.next = null;
+	  node.epoch = epoch;
+	  return node;
+  }
+  
+  /**
+   * Clears a node that has left the list and keeps it in the pool if there is
+   * room.  A node from an earlier epoch may still be read by a snapshot, so it
+   * is never pooled.
+   */
+  private void recycle(Node node) {
+	  if (pooled >= poolCapacity || node.epoch != epoch)
+		  return;
+	  for (int i = 0; i < node.count; i++)
+		  node.set(i, null);
+	  node.start = 0;
+	  node.count = 0;
+	  node.previous = null;
+	  node.parent = null;
+	  node.left = null;
+	  node.right = null;
+	  node.weight = 0;
+	  node.indexed = false;
+	  node.next = pool;
+	  pool = node;
+	  pooled++;
+  }
+  
+  /**
+   * Returns a node of the current epoch in place of the given one, copying
+   * it into the chain if it may be shared with a snapshot.  Unlike own(),
+   * this leaves the positional index alone, for callers that rebuild it.
+   * 
+   * @param node node in the chain
+   * @return the node itself or its copy
+   */
+  private Node claim(Node node) {
+	  if (node.epoch == epoch)
+		  return node;
+	  Node copy = newNode();
+	  copy.copyFrom(node);
+	  copy.previous.next = copy;
+	  copy.next.previous = copy;
+	  return copy;
+  }
+  
+  /**
+   * Makes a node start at the given position, dividing the node holding it
+   * if needed.
+   * 
+   * @param pos position in the list
+   * @return the node starting at pos, or the tail if pos == size
+   */
+  private Node cutBefore(int pos) {
+	  NodeInfo info = find(pos);
+	  if (info.off == 0)
+		  return info.node;
+	  int off = info.off;
+	  Node node = own(info.node);
+	  Node rest = newNode();
+	  node.moveTo(off, rest);
+	  link(node, rest);
+	  return rest;
+  }
+  
+  /**
+   * Hands the nodes from first to last, taken out of the other list, over to
+   * this one: each node is made to report to this list, and its elements are
+   * moved between the metrics and membership indexes of the two lists.  A
+   * node that may still be shared with a snapshot of the other list is given
+   * epoch 0, which no list has, so that it is copied before it is modified.
+   */
+  private void takeNodes(StoutList<E> from, Node first, Node last) {
+	  for (Node temp = first; ; temp = temp.next) {
+		  temp.list = this;
+		  temp.epoch = temp.epoch == from.epoch ? epoch : 0;
+		  from.index.nodes--;
+		  index.nodes++;
+		  if (from.metrics != null)
+			  from.metrics.removed(temp.count);
+		  if (metrics != null)
+			  metrics.added(temp.count);
+		  if (from.members != null || members != null) {
+			  for (int i = 0; i < temp.count; i++) {
+				  if (from.members != null)
+					  from.members.remove(temp.get(i));
+				  if (members != null)
+					  members.add(temp.get(i));
+			  }
+		  }
+		  if (temp == last)
+			  return;
+	  }
+  }
+  
+  /**
+   * Restores the half-full rule at a node that is not the last one, merging
+   * its successor into it when they fit in one node and borrowing elements
+   * from the successor otherwise.
+   * 
+   * @param node node in the chain, or head or tail to do nothing
+   */
+  private void rebalance(Node node) {
+	  if (node == head || node == tail)
+		  return;
+	  while (node.next != tail && node.count < nodeSize / 2) {
+		  node = own(node);
+		  Node succesor = own(node.next);
+		  if (node.count + succesor.count <= nodeSize) {
+			  if (metrics != null)
+				  metrics.merge();
+			  succesor.moveTo(0, node);
+			  unlink(succesor);
+		  } else {
+			  if (metrics != null)
+				  metrics.borrow();
+			  while (node.count < nodeSize / 2) {
+				  node.addItem(succesor.get(0));
+				  succesor.removeItem(0);
+			  }
+		  }
+	  }
+  }
+  
+  /**
+   * Returns a node of the current epoch that can be modified in place.  A node
+   * from an earlier epoch may be shared with a snapshot, so it is replaced in
+   * the chain and the positional index by a copy, after the same is done for
+   * its parent.  Hence the ancestors of an owned node are always owned, and
+   * weight updates along the parent links only touch owned nodes.
+   * 
+   * Any other reference to the replaced nodes becomes stale, so modCount is
+   * bumped for each copy.
+   * 
+   * @param node node in the chain
+   * @return the node itself or its copy
+   */
+  private Node own(Node node) {
+	  if (node.epoch == epoch)
+		  return node;
+	  
+	  Node parent = node.parent == null ? null : own(node.parent);
+	  Node copy = newNode();
+	  copy.copyFrom(node);
+	  copy.parent = parent;
+	  if (parent == null)
+		  index.root = copy;
+	  else if (parent.left == node)
+		  parent.left = copy;
+	  else
+		  parent.right = copy;
+	  if (copy.left != null)
+		  copy.left.parent = copy;
+	  if (copy.right != null)
+		  copy.right.parent = copy;
+	  copy.previous.next = copy;
+	  copy.next.previous = copy;
+	  modCount++;
+	  return copy;
+  }
+  
+  /**
+   * Order-statistic tree over the nodes between head and tail.  The tree is
+   * a treap whose in-order traversal is the node chain; each tree node keeps
+   * the total count of its subtree in weight, so a position can be located
+   * by a single root-to-leaf descent.  Count changes are pushed up through
+   * the parent links, and splits and merges insert or remove a single tree
+   * node, all in expected O(log n) time.
+   * 
+   * Count changes of the first and last nodes are only recorded, and pushed
+   * up when the weights are next needed, so that work at the ends of the
+   * list does not walk the tree.  flush() must be called before reading the
+   * weights.
+   */
+  class NodeIndex {
+	  
+	  /**
+	   * Root of the tree, or null if the list has no nodes.
+	   */
+	  Node root;
+	  
+	  /**
+	   * End nodes with count changes not yet added to the weights of the
+	   * nodes and their ancestors, and the size of those changes.
+	   */
+	  private Node front, back;
+	  private int frontDrift, backDrift;
+	  
+	  /**
+	   * Number of nodes in the tree.
+	   */
+	  int nodes;
+	  
+	  /**
+	   * Returns the weight of a possibly empty subtree.
+	   */
+	  int weight(Node node) {
+		  return node == null ? 0 : node.weight;
+	  }
+	  
+	  /**
+	   * Returns the node holding the element at the given position without
+	   * touching the shared lookup result, so it is safe for concurrent readers.
+	   * Precondition: 0 <= pos < size
+	   */
+	  Node nodeAt(int pos) {
+		  Node temp = root;
+		  while (true) {
+			  int leftWeight = weight(temp.left);
+			  if (pos < leftWeight) {
+				  temp = temp.left;
+			  } else if (pos < leftWeight + temp.count) {
+				  return temp;
+			  } else {
+				  pos -= leftWeight + temp.count;
+				  temp = temp.right;
+			  }
+		  }
+	  }
+	  
+	  /**
+	   * Returns the list position of the first element of an indexed node.
+	   */
+	  int startOf(Node node) {
+		  int start = weight(node.left);
+		  for (Node temp = node; temp.parent != null; temp = temp.parent) {
+			  if (temp.parent.right == temp)
+				  start += weight(temp.parent.left) + temp.parent.count;
+		  }
+		  return start;
+	  }
+	  
+	  /**
+	   * Empties the tree.  The nodes themselves are left untouched.
+	   */
+	  void clear() {
+		  root = null;
+		  nodes = 0;
+		  frontDrift = backDrift = 0;
+		  if (metrics != null)
+			  metrics.clearOccupancy();
+	  }
+	  
+	  /**
+	   * Records a change of delta in the count of an indexed node.
+	   */
+	  void resized(Node node, int delta) {
+		  if (node == head.next) {
+			  if (node != front) {
+				  flush();
+				  front = node;
+			  }
+			  frontDrift += delta;
+		  } else if (node == tail.previous) {
+			  if (node != back) {
+				  flush();
+				  back = node;
+			  }
+			  backDrift += delta;
+		  } else {
+			  adjust(node, delta);
+		  }
+		  if (metrics != null)
+			  metrics.resized(node.count - delta, node.count);
+	  }
+	  
+	  /**
+	   * Pushes the recorded count changes of the end nodes into the weights.
+	   */
+	  void flush() {
+		  if (frontDrift != 0) {
+			  adjust(front, frontDrift);
+			  frontDrift = 0;
+		  }
+		  if (backDrift != 0) {
+			  adjust(back, backDrift);
+			  backDrift = 0;
+		  }
+	  }
+	  
+	  /**
+	   * Adds delta to the weight of a node and all its ancestors.
+	   */
+	  void adjust(Node node, int delta) {
+		  for (Node temp = node; temp != null; temp = temp.parent)
+			  temp.weight += delta;
+	  }
+	  
+	  /**
+	   * Inserts a node directly after prev in the in-order sequence.
+	   * 
+	   * @param prev indexed node or head
+	   * @param node node that is not yet indexed
+	   */
+	  void insertAfter(Node prev, Node node) {
+		  flush();
+		  node.left = null;
+		  node.right = null;
+		  node.weight = node.count;
+		  node.priority = ThreadLocalRandom.current().nextInt();
+		  node.indexed = true;
+		  nodes++;
+		  if (metrics != null)
+			  metrics.added(node.count);
+		  
+		  if (root == null) {
+			  node.parent = null;
+			  root = node;
+			  return;
+		  }
+		  
+		  // Attach as a leaf: either the right child of prev or the leftmost
+		  // node of its right subtree (the leftmost of the tree after the head)
+		  Node parent;
+		  if (prev != head && prev.right == null) {
+			  parent = own(prev);
+			  parent.right = node;
+		  } else {
+			  parent = prev == head ? root : prev.right;
+			  while (parent.left != null)
+				  parent = parent.left;
+			  parent = own(parent);
+			  parent.left = node;
+		  }
+		  node.parent = parent;
+		  adjust(parent, node.count);
+		  
+		  // Restore the heap order on the priorities
+		  while (node.parent != null && node.priority > node.parent.priority)
+			  rotateUp(node);
+	  }
+	  
+	  /**
+	   * Removes a node from the tree.
+	   * 
+	   * @param node indexed node of the current epoch
+	   */
+	  void remove(Node node) {
+		  flush();
+		  
+		  // Rotate the node down until it is a leaf
+		  while (node.left != null || node.right != null) {
+			  if (node.right == null || (node.left != null && node.left.priority > node.right.priority))
+				  rotateUp(own(node.left));
+			  else
+				  rotateUp(own(node.right));
+		  }
+		  
+		  Node parent = node.parent;
+		  if (parent == null) {
+			  root = null;
+		  } else {
+			  if (parent.left == node)
+				  parent.left = null;
+			  else
+				  parent.right = null;
+			  adjust(parent, -node.count);
+		  }
+		  node.parent = null;
+		  node.indexed = false;
+		  nodes--;
+		  if (metrics != null)
+			  metrics.removed(node.count);
+	  }
+	  
+	  /**
+	   * Splits the tree at a node boundary.  The nodes before pos stay in the
+	   * tree and the ones from pos on are returned as a tree of their own.
+	   * The path from the root to the boundary is owned first, so only owned
+	   * nodes are changed.
+	   * 
+	   * @param pos position at which a node starts, or the number of elements
+	   * @return root of the nodes from pos on, or null if there are none
+	   */
+	  Node split(int pos) {
+		  flush();
+		  Node temp = root, last = null;
+		  int start = 0;
+		  while (temp != null) {
+			  last = temp;
+			  if (start + weight(temp.left) < pos) {
+				  start += weight(temp.left) + temp.count;
+				  temp = temp.right;
+			  } else {
+				  temp = temp.left;
+			  }
+		  }
+		  if (last == null)
+			  return null;
+		  own(last);
+		  
+		  // Walk the path again, hanging each node on the spine of its side
+		  Node left = null, right = null, leftRoot = null, rightRoot = null;
+		  temp = root;
+		  start = 0;
+		  while (temp != null) {
+			  if (start + weight(temp.left) < pos) {
+				  if (left == null)
+					  leftRoot = temp;
+				  else
+					  left.right = temp;
+				  temp.parent = left;
+				  left = temp;
+				  start += weight(temp.left) + temp.count;
+				  temp = temp.right;
+			  } else {
+				  if (right == null)
+					  rightRoot = temp;
+				  else
+					  right.left = temp;
+				  temp.parent = right;
+				  right = temp;
+				  temp = temp.left;
+			  }
+		  }
+		  if (left != null)
+			  left.right = null;
+		  if (right != null)
+			  right.left = null;
+		  for (temp = left; temp != null; temp = temp.parent)
+			  temp.weight = temp.count + weight(temp.left) + weight(temp.right);
+		  for (temp = right; temp != null; temp = temp.parent)
+			  temp.weight = temp.count + weight(temp.left) + weight(temp.right);
+		  root = leftRoot;
+		  return rightRoot;
+	  }
+	  
+	  /**
+	   * Joins two trees, all of whose nodes precede those of the second, by
+	   * merging the right spine of the first with the left spine of the
+	   * second.  The nodes on those spines must be owned.  The caller sets the
+	   * parent link of the returned root.
+	   * 
+	   * @return root of the joined tree
+	   */
+	  Node join(Node a, Node b) {
+		  if (a == null)
+			  return b;
+		  if (b == null)
+			  return a;
+		  if (a.priority > b.priority) {
+			  a.right = join(a.right, b);
+			  a.right.parent = a;
+			  a.weight = a.count + weight(a.left) + weight(a.right);
+			  return a;
+		  }
+		  b.left = join(a, b.left);
+		  b.left.parent = b;
+		  b.weight = b.count + weight(b.left) + weight(b.right);
+		  return b;
+	  }
+	  
+	  /**
+	   * Takes the whole tree out of the index, leaving it empty.  Both outer
+	   * spines are owned first, so that the tree can be joined to another.
+	   * The metrics are left to the caller.
+	   * 
+	   * @return root of the tree, or null if the list has no nodes
+	   */
+	  Node detach() {
+		  flush();
+		  if (root == null)
+			  return null;
+		  Node temp = root;
+		  while (temp.left != null)
+			  temp = temp.left;
+		  own(temp);
+		  for (temp = root; temp.right != null; temp = temp.right)
+			  ;
+		  own(temp);
+		  Node tree = root;
+		  root = null;
+		  return tree;
+	  }
+	  
+	  /**
+	   * Rotates a node above its parent, keeping the in-order sequence.
+	   */
+	  private void rotateUp(Node node) {
+		  Node parent = node.parent;
+		  Node grand = parent.parent;
+		  if (parent.left == node) {
+			  parent.left = node.right;
+			  if (node.right != null)
+				  node.right.parent = parent;
+			  node.right = parent;
+		  } else {
+			  parent.right = node.left;
+			  if (node.left != null)
+				  node.left.parent = parent;
+			  node.left = parent;
+		  }
+		  parent.parent = node;
+		  node.parent = grand;
+		  if (grand == null)
+			  root = node;
+		  else if (grand.left == parent)
+			  grand.left = node;
+		  else
+			  grand.right = node;
+		  parent.weight = parent.count + weight(parent.left) + weight(parent.right);
+		  node.weight = node.count + weight(node.left) + weight(node.right);
+	  }
+	  
+	  /**
+	   * Takes a node and all the nodes after it out of the tree, for a caller
+	   * that rewrites them and then calls rebuildFrom().  Only the path to the
+	   * node is owned, so the nodes before it are left as they are, even the
+	   * ones shared with a snapshot.
+	   * 
+	   * @param node indexed node
+	   * @return the node itself or the copy that replaced it
+	   */
+	  Node truncate(Node node) {
+		  flush();
+		  Node first = split(startOf(node));
+		  while (first.left != null)
+			  first = first.left;
+		  for (Node temp = first; temp != tail; temp = temp.next) {
+			  nodes--;
+			  if (metrics != null)
+				  metrics.removed(temp.count);
+		  }
+		  return first;
+	  }
+	  
+	  /**
+	   * Rebuilds the tree from the current node chain in linear time.
+	   */
+	  void rebuild() {
+		  frontDrift = backDrift = 0;
+		  nodes = 0;
+		  root = build(head.next);
+	  }
+	  
+	  /**
+	   * Indexes the nodes from the given one to the end of the chain after
+	   * the nodes left in the tree by truncate(), in time linear in the
+	   * number of nodes added.  The nodes must be of the current epoch.
+	   * 
+	   * @param first first node to index, or the tail
+	   */
+	  void rebuildFrom(Node first) {
+		  root = join(root, build(first));
+		  if (root != null)
+			  root.parent = null;
+	  }
+	  
+	  /**
+	   * Builds a tree over the nodes from the given one to the end of the
+	   * chain.  The nodes are given fresh random priorities and assembled as a
+	   * Cartesian tree, using the parent links of the right spine as the stack.
+	   * 
+	   * @return root of the tree, or null if first is the tail
+	   */
+	  private Node build(Node first) {
+		  Node top = null;
+		  for (Node temp = first; temp != tail; temp = temp.next) {
+			  temp.priority = ThreadLocalRandom.current().nextInt();
+			  temp.indexed = true;
+			  nodes++;
+			  if (metrics != null)
+				  metrics.added(temp.count);
+			  temp.left = null;
+			  temp.right = null;
+			  
+			  // Pop the spine nodes with a lower priority; they become the left subtree
+			  Node last = null;
+			  while (top != null && top.priority < temp.priority) {
+				  top.weight = top.count + weight(top.left) + weight(top.right);
+				  last = top;
+				  top = top.parent;
+			  }
+			  temp.left = last;
+			  if (last != null)
+				  last.parent = temp;
+			  temp.parent = top;
+			  if (top != null)
+				  top.right = temp;
+			  top = temp;
+		  }
+		  
+		  // Finish the weights of the remaining spine
+		  Node tree = null;
+		  while (top != null) {
+			  top.weight = top.count + weight(top.left) + weight(top.right);
+			  tree = top;
+			  top = top.parent;
+		  }
+		  return tree;
+	  }
+  }
+  
+  /**
+   * Sequence of pieces that applyBatch() resolves a batch of edits into:
+   * runs of positions in the list before the batch, which never change
+   * their order, and single elements added by the batch.  The pieces are
+   * kept in a treap ordered by position in the edited list, where each
+   * piece stores the number of elements in its subtree, so an edit splits
+   * the sequence at its position and joins the parts back in expected
+   * O(log k) time for k edits.
+   */
+  private static class PieceTable<E> {
+	  
+	  /**
+	   * Run of positions from, inclusive, to to, exclusive, or a single new
+	   * element if item is not null.
+	   */
+	  static class Piece<E> {
+		  int from, to;
+		  E item;
+		  Piece<E> left, right;
+		  int priority, length;
+	  }
+	  
+	  private Piece<E> root;
+	  
+	  /**
+	   * Parts left by the last split().
+	   */
+	  private Piece<E> low, high;
+	  
+	  /**
+	   * Creates a table holding a single run of the given number of elements.
+	   */
+	  PieceTable(int size) {
+		  if (size > 0)
+			  root = piece(0, size, null);
+	  }
+	  
+	  void insert(int pos, E item) {
+		  split(root, pos);
+		  root = merge(merge(low, piece(0, 0, item)), high);
+	  }
+	  
+	  void remove(int pos) {
+		  split(root, pos);
+		  Piece<E> before = low;
+		  split(high, 1);
+		  root = merge(before, high);
+	  }
+	  
+	  void set(int pos, E item) {
+		  split(root, pos);
+		  Piece<E> before = low;
+		  split(high, 1);
+		  root = merge(merge(before, piece(0, 0, item)), high);
+	  }
+	  
+	  /**
+	   * Returns the pieces in order.
+	   */
+	  List<Piece<E>> pieces() {
+		  List<Piece<E>> pieces = new ArrayList<>();
+		  Deque<Piece<E>> stack = new ArrayDeque<>();
+		  Piece<E> temp = root;
+		  while (temp != null || !stack.isEmpty()) {
+			  while (temp != null) {
+				  stack.push(temp);
+				  temp = temp.left;
+			  }
+			  temp = stack.pop();
+			  pieces.add(temp);
+			  temp = temp.right;
+		  }
+		  return pieces;
+	  }
+	  
+	  private Piece<E> piece(int from, int to, E item) {
+		  Piece<E> piece = new Piece<>();
+		  piece.from = from;
+		  piece.to = to;
+		  piece.item = item;
+		  piece.priority = ThreadLocalRandom.current().nextInt();
+		  update(piece);
+		  return piece;
+	  }
+	  
+	  private static int length(Piece<?> piece) {
+		  return piece == null ? 0 : piece.length;
+	  }
+	  
+	  private static int count(Piece<?> piece) {
+		  return piece.item != null ? 1 : piece.to - piece.from;
+	  }
+	  
+	  private static void update(Piece<?> piece) {
+		  piece.length = length(piece.left) + count(piece) + length(piece.right);
+	  }
+	  
+	  /**
+	   * Splits a subtree into the elements before pos, left in low, and the
+	   * rest, left in high.  A run holding pos is cut in two.
+	   */
+	  private void split(Piece<E> piece, int pos) {
+		  if (piece == null) {
+			  low = high = null;
+			  return;
+		  }
+		  int leftLength = length(piece.left);
+		  if (pos <= leftLength) {
+			  split(piece.left, pos);
+			  piece.left = high;
+			  update(piece);
+			  high = piece;
+		  } else if (pos >= leftLength + count(piece)) {
+			  split(piece.right, pos - leftLength - count(piece));
+			  piece.right = low;
+			  update(piece);
+			  low = piece;
+		  } else {
+			  // Cut the run, and join its second part with the right subtree
+			  Piece<E> rest = piece(piece.from + pos - leftLength, piece.to, null);
+			  Piece<E> right = piece.right;
+			  piece.right = null;
+			  piece.to = rest.from;
+			  update(piece);
+			  low = piece;
+			  high = merge(rest, right);
+		  }
+	  }
+	  
+	  /**
+	   * Joins two subtrees, all of whose elements come before those of the
+	   * second.
+	   */
+	  private Piece<E> merge(Piece<E> a, Piece<E> b) {
+		  if (a == null)
+			  return b;
+		  if (b == null)
+			  return a;
+		  if (a.priority > b.priority) {
+			  a.right = merge(a.right, b);
+			  update(a);
+			  return a;
+		  }
+		  b.left = merge(a, b.left);
+		  update(b);
+		  return b;
+	  }
+  }
+  
+  /**
+   * Open-addressing hash multiset of the elements in a list.  Duplicates can
+   * still enter through add(int, E), so each key carries an occurrence count.
+   * Collisions are resolved by linear probing and removals shift the
+   * following keys back, so no tombstones are needed.
+   */
+  private static class MembershipIndex {
+	  
+	  /**
+	   * Hash slots; null marks an empty slot.  The length is a power of two.
+	   */
+	  Object[] keys = new Object[16];
+	  
+	  /**
+	   * Number of occurrences of the key in the same slot.
+	   */
+	  int[] counts = new int[16];
+	  
+	  /**
+	   * Number of distinct keys stored.
+	   */
+	  int distinct;
+	  
+	  /**
+	   * Returns the home slot of a key.
+	   */
+	  int slot(Object key) {
+		  int h = key.hashCode();
+		  return (h ^ (h >>> 16)) & (keys.length - 1);
+	  }
+	  
+	  /**
+	   * Returns the slot holding the key, or the empty slot where it would go.
+	   */
+	  int probe(Object key) {
+		  int i = slot(key);
+		  while (keys[i] != null && !keys[i].equals(key))
+			  i = (i + 1) & (keys.length - 1);
+		  return i;
+	  }
+	  
+	  boolean contains(Object key) {
+		  return keys[probe(key)] != null;
+	  }
+	  
+	  /**
+	   * Records one more occurrence of the key.
+	   */
+	  void add(Object key) {
+		  int i = probe(key);
+		  if (keys[i] != null) {
+			  counts[i]++;
+			  return;
+		  }
+		  keys[i] = key;
+		  counts[i] = 1;
+		  // Keep the table at most half full
+		  if (++distinct * 2 > keys.length)
+			  resize(keys.length * 2);
+	  }
+	  
+	  /**
+	   * Removes one occurrence of the key, if present.
+	   */
+	  void remove(Object key) {
+		  int i = probe(key);
+		  if (keys[i] == null || --counts[i] > 0)
+			  return;
+		  
+		  // Empty the slot and shift back every following key that may not
+		  // live between its home slot and its current slot
+		  int mask = keys.length - 1;
+		  int j = i;
+		  while (true) {
+			  keys[i] = null;
+			  counts[i] = 0;
+			  do {
+				  j = (j + 1) & mask;
+				  if (keys[j] == null) {
+					  distinct--;
+					  return;
+				  }
+				  int home = slot(keys[j]);
+				  // Keep the key in place if its home lies cyclically in (i, j]
+				  if (i <= j ? (i < home && home <= j) : (i < home || home <= j))
+					  continue;
+				  break;
+			  } while (true);
+			  keys[i] = keys[j];
+			  counts[i] = counts[j];
+			  i = j;
+		  }
+	  }
+	  
+	  /**
+	   * Removes all keys.
+	   */
+	  void clear() {
+		  Arrays.fill(keys, null);
+		  Arrays.fill(counts, 0);
+		  distinct = 0;
+	  }
+	  
+	  /**
+	   * Moves all keys into a table of the given capacity.
+	   */
+	  private void resize(int capacity) {
+		  Object[] oldKeys = keys;
+		  int[] oldCounts = counts;
+		  keys = new Object[capacity];
+		  counts = new int[capacity];
+		  for (int k = 0; k < oldKeys.length; k++) {
+			  if (oldKeys[k] != null) {
+				  int i = probe(oldKeys[k]);
+				  keys[i] = oldKeys[k];
+				  counts[i] = oldCounts[k];
+			  }
 		  }
-		  // If we've found the node containing the target position, create a NodeInfo object with the node and its offset
-		  NodeInfo node = new NodeInfo(temp, pos - currPos);
-		  return node;		  
 	  }
-	  // If the position is not found in the list, return null
-	  return null;
   }
   
   /**
@@ -930,4 +4061,4 @@ public class StoutList<E extends Comparable<? super E>> extends AbstractSequenti
 //	    
 //	  
 //  }
-}
\ No newline at end of file
+}
\ No newline at end of file
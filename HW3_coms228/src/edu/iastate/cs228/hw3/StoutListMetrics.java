@@ -0,0 +1,141 @@
+package edu.iastate.cs228.hw3;
+
+import java.util.Arrays;
+
+/**
+ * Structural counters of a StoutList, collected after StoutList.enableMetrics()
+ * is called: node splits in add(int, E), borrows and merges in remove(int),
+ * the index nodes visited by each positional lookup, and a histogram of the
+ * number of elements in each node.  The counters are updated by the list as
+ * it changes and, like the list, are not thread-safe.
+ */
+public class StoutListMetrics
+{
+	private long splits, borrows, merges, finds, findHops;
+
+	/**
+	 * Number of nodes in the list holding each number of elements.
+	 */
+	private final long[] occupancy;
+
+	StoutListMetrics(int nodeSize)
+	{
+		occupancy = new long[nodeSize + 1];
+	}
+
+	/**
+	 * Returns the number of full nodes split to make room for an element.
+	 */
+	public long splits()
+	{
+		return splits;
+	}
+
+	/**
+	 * Returns the number of elements moved from a successor node after a removal.
+	 */
+	public long borrows()
+	{
+		return borrows;
+	}
+
+	/**
+	 * Returns the number of successor nodes merged into their predecessor
+	 * after a removal.
+	 */
+	public long merges()
+	{
+		return merges;
+	}
+
+	/**
+	 * Returns the number of positional lookups.
+	 */
+	public long finds()
+	{
+		return finds;
+	}
+
+	/**
+	 * Returns the total number of nodes visited by positional lookups.
+	 */
+	public long findHops()
+	{
+		return findHops;
+	}
+
+	/**
+	 * Returns the mean number of nodes visited per positional lookup.
+	 */
+	public double meanFindHops()
+	{
+		return finds == 0 ? 0 : (double) findHops / finds;
+	}
+
+	/**
+	 * Returns a copy of the occupancy histogram: element i is the number of
+	 * nodes in the list holding i elements.
+	 */
+	public long[] occupancy()
+	{
+		return occupancy.clone();
+	}
+
+	/**
+	 * Sets all counters to zero.  The occupancy histogram describes the
+	 * current nodes and is kept.
+	 */
+	public void reset()
+	{
+		splits = borrows = merges = finds = findHops = 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "splits=" + splits + ", borrows=" + borrows + ", merges=" + merges + ", finds=" + finds
+				+ ", meanFindHops=" + meanFindHops() + ", occupancy=" + Arrays.toString(occupancy);
+	}
+
+	void split()
+	{
+		splits++;
+	}
+
+	void borrow()
+	{
+		borrows++;
+	}
+
+	void merge()
+	{
+		merges++;
+	}
+
+	void found(int hops)
+	{
+		finds++;
+		findHops += hops;
+	}
+
+	void added(int count)
+	{
+		occupancy[count]++;
+	}
+
+	void removed(int count)
+	{
+		occupancy[count]--;
+	}
+
+	void resized(int from, int to)
+	{
+		occupancy[from]--;
+		occupancy[to]++;
+	}
+
+	void clearOccupancy()
+	{
+		Arrays.fill(occupancy, 0);
+	}
+}
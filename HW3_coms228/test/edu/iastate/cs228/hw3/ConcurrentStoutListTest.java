@@ -0,0 +1,193 @@
+package edu.iastate.cs228.hw3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Multi-threaded stress test for ConcurrentStoutList.
+ */
+public class ConcurrentStoutListTest
+{
+  /**
+   * Number of writer threads, and operations run by each.
+   */
+  private static final int THREADS = 4, OPERATIONS = 20000;
+
+  /**
+   * Several threads append, insert at random positions, remove and read
+   * elements while another one keeps checking the node invariants and that
+   * the size never goes negative.  Every element is distinct and only the
+   * thread that added it removes it, so at the end the list must hold
+   * exactly the elements each thread has left in it, with the ones a thread
+   * appended still in the order it appended them.
+   */
+  @Test
+  public void stress() throws InterruptedException
+  {
+	  ConcurrentStoutList<Integer> list = new ConcurrentStoutList<>(8);
+	  List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+	  List<Set<Integer>> appended = new ArrayList<>(), inserted = new ArrayList<>();
+
+	  List<Thread> writers = new ArrayList<>();
+	  for (int t = 0; t < THREADS; t++) {
+		  // Thread t uses the values t * OPERATIONS to (t + 1) * OPERATIONS - 1
+		  final int first = t * OPERATIONS;
+		  final Set<Integer> own = new TreeSet<>(), positioned = new HashSet<>();
+		  appended.add(own);
+		  inserted.add(positioned);
+		  writers.add(new Thread(() -> {
+			  Random random = new Random(first);
+			  List<Integer> live = new ArrayList<>();
+			  try {
+				  for (int k = 0; k < OPERATIONS; k++) {
+					  Integer item = first + k;
+					  int op = random.nextInt(10);
+					  if (op < 3) {
+						  assertTrue(list.add(item));
+						  own.add(item);
+						  live.add(item);
+					  } else if (op < 5) {
+						  try {
+							  list.add(random.nextInt(list.size() + 1), item);
+							  positioned.add(item);
+							  live.add(item);
+						  } catch (IndexOutOfBoundsException e) {
+							  // Another thread shrank the list after the size was read
+						  }
+					  } else if (op < 8) {
+						  if (!live.isEmpty()) {
+							  Integer victim = live.remove(random.nextInt(live.size()));
+							  assertTrue(list.remove(victim));
+							  own.remove(victim);
+							  positioned.remove(victim);
+						  }
+					  } else {
+						  try {
+							  list.get(random.nextInt(Math.max(1, list.size())));
+						  } catch (IndexOutOfBoundsException e) {
+							  // As above
+						  }
+					  }
+				  }
+			  } catch (Throwable e) {
+				  failures.add(e);
+			  }
+		  }));
+	  }
+
+	  Thread checker = new Thread(() -> {
+		  try {
+			  while (!Thread.currentThread().isInterrupted()) {
+				  assertTrue(list.size() >= 0, "negative size");
+				  list.checkInvariants();
+				  for (Integer item : list)
+					  assertNotNull(item, "iterator returned null");
+				  assertTrue(list.indexOf(OPERATIONS / 2) >= -1);
+				  assertEquals(-1, list.lastIndexOf(-1));
+				  assertTrue(list.equals(list));
+				  list.hashCode();
+			  }
+		  } catch (Throwable e) {
+			  failures.add(e);
+		  }
+	  });
+
+	  checker.start();
+	  for (Thread writer : writers)
+		  writer.start();
+	  for (Thread writer : writers)
+		  writer.join();
+	  checker.interrupt();
+	  checker.join();
+	  if (!failures.isEmpty())
+		  throw new AssertionError(failures.get(0));
+
+	  list.checkInvariants();
+	  Set<Integer> expected = new HashSet<>();
+	  for (int t = 0; t < THREADS; t++) {
+		  expected.addAll(appended.get(t));
+		  expected.addAll(inserted.get(t));
+	  }
+	  List<Integer> elements = new ArrayList<>(list);
+	  assertEquals(expected.size(), list.size());
+	  assertEquals(expected.size(), elements.size());
+	  assertEquals(expected, new HashSet<>(elements));
+	  for (Integer item : elements)
+		  assertTrue(list.contains(item));
+
+	  // Each thread's appended elements are still in ascending order
+	  for (int t = 0; t < THREADS; t++) {
+		  List<Integer> order = new ArrayList<>();
+		  for (Integer item : elements)
+			  if (appended.get(t).contains(item))
+				  order.add(item);
+		  assertEquals(new ArrayList<>(appended.get(t)), order);
+	  }
+  }
+
+  /**
+   * On a single thread, the queries that AbstractList would answer through
+   * positional access agree with an ArrayList, and the positional views
+   * are refused.
+   */
+  @Test
+  public void queriesMatchArrayList()
+  {
+	  Random random = new Random(8);
+	  for (int round = 0; round < 100; round++) {
+		  ConcurrentStoutList<Integer> list = new ConcurrentStoutList<>(2 * (1 + random.nextInt(4)));
+		  List<Integer> model = new ArrayList<>();
+		  int range = 10 + random.nextInt(100);
+		  for (int k = 0; k < 200; k++) {
+			  Integer item = random.nextInt(range);
+			  int pos = random.nextInt(model.size() + 1);
+			  switch (random.nextInt(5)) {
+			  case 0:
+				  // Positional insertions may repeat elements
+				  list.add(pos, item);
+				  model.add(pos, item);
+				  break;
+			  case 1:
+				  assertEquals(!model.contains(item), list.add(item));
+				  if (!model.contains(item))
+					  model.add(item);
+				  break;
+			  case 2:
+				  assertEquals(model.remove(item), list.remove(item));
+				  break;
+			  default:
+				  assertEquals(model.indexOf(item), list.indexOf(item));
+				  assertEquals(model.lastIndexOf(item), list.lastIndexOf(item));
+			  }
+			  assertEquals(model, list);
+			  assertEquals(list, model);
+			  assertEquals(model.hashCode(), list.hashCode());
+		  }
+		  list.checkInvariants();
+		  if (!model.isEmpty())
+			  assertFalse(list.equals(model.subList(0, model.size() - 1)));
+		  list.clear();
+		  assertTrue(list.isEmpty());
+		  assertEquals(-1, list.indexOf(0));
+		  list.checkInvariants();
+	  }
+
+	  ConcurrentStoutList<Integer> list = new ConcurrentStoutList<>();
+	  assertThrows(UnsupportedOperationException.class, () -> list.listIterator());
+	  assertThrows(UnsupportedOperationException.class, () -> list.listIterator(0));
+	  assertThrows(UnsupportedOperationException.class, () -> list.subList(0, 0));
+  }
+}
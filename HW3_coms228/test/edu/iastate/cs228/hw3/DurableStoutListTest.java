@@ -0,0 +1,189 @@
+package edu.iastate.cs228.hw3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.iastate.cs228.hw3.DurableStoutList.FsyncPolicy;
+
+/**
+ * Reopens DurableStoutLists after clean shutdowns and after the end of the
+ * journal has been cut off or corrupted.
+ */
+public class DurableStoutListTest
+{
+  private static final int NODE_SIZE = 4;
+
+  @TempDir
+  Path dir;
+
+  /**
+   * A list reopened after close() holds what it held before, across
+   * checkpoints, whether or not it keeps a membership index.
+   */
+  @Test
+  public void reopen() throws IOException
+  {
+	  Random random = new Random(7);
+	  List<Integer> model = new ArrayList<>();
+	  for (int session = 0; session < 5; session++) {
+		  try (DurableStoutList<Integer> list = open(session % 2 == 0)) {
+			  StoutListTest.checkNodes(list, model, NODE_SIZE, true);
+			  for (int k = 0; k < 500; k++)
+				  mutate(list, model, random);
+			  if (session % 2 == 1)
+				  list.checkpoint();
+			  for (int k = 0; k < 100; k++)
+				  mutate(list, model, random);
+		  }
+	  }
+	  try (DurableStoutList<Integer> list = open()) {
+		  StoutListTest.checkNodes(list, model, NODE_SIZE, true);
+	  }
+  }
+
+  /**
+   * Cutting the journal anywhere inside its last record loses that record
+   * only.  The list reopened from the rest can be changed and reopened again.
+   */
+  @Test
+  public void tornTail() throws IOException
+  {
+	  Random random = new Random(11);
+	  List<Integer> model = new ArrayList<>();
+	  try (DurableStoutList<Integer> list = open()) {
+		  for (int k = 0; k < 300; k++)
+			  mutate(list, model, random);
+	  }
+	  Path journal = journal();
+
+	  for (int cut = 1; cut < 17; cut++) {
+		  List<Integer> before = new ArrayList<>(model);
+		  long length;
+		  try (DurableStoutList<Integer> list = open()) {
+			  length = Files.size(journal);
+			  list.add(0, 1000 + cut);
+			  model.add(0, 1000 + cut);
+		  }
+		  // The INSERT record of an int takes 17 bytes, so every cut falls inside it
+		  long written = Files.size(journal);
+		  try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+			  channel.truncate(written - cut);
+		  }
+		  model = before;
+		  try (DurableStoutList<Integer> list = open()) {
+			  StoutListTest.checkNodes(list, model, NODE_SIZE, true);
+			  assertEquals(length, Files.size(journal));
+			  for (int k = 0; k < 20; k++)
+				  mutate(list, model, random);
+		  }
+		  try (DurableStoutList<Integer> list = open()) {
+			  StoutListTest.checkNodes(list, model, NODE_SIZE, true);
+		  }
+	  }
+  }
+
+  /**
+   * A record whose checksum does not match its contents ends recovery, as
+   * a torn one does.
+   */
+  @Test
+  public void corruptTail() throws IOException
+  {
+	  Random random = new Random(13);
+	  List<Integer> model = new ArrayList<>();
+	  try (DurableStoutList<Integer> list = open()) {
+		  for (int k = 0; k < 300; k++)
+			  mutate(list, model, random);
+	  }
+	  List<Integer> before = new ArrayList<>(model);
+	  try (DurableStoutList<Integer> list = open()) {
+		  list.set(0, 2000);
+	  }
+
+	  // Flip a bit in the last byte of the SET record
+	  Path journal = journal();
+	  try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+		  ByteBuffer last = ByteBuffer.allocate(1);
+		  channel.read(last, channel.size() - 1);
+		  last.put(0, (byte) (last.get(0) ^ 1));
+		  last.rewind();
+		  channel.write(last, channel.size() - 1);
+	  }
+	  try (DurableStoutList<Integer> list = open()) {
+		  StoutListTest.checkNodes(list, before, NODE_SIZE, true);
+	  }
+  }
+
+  private DurableStoutList<Integer> open() throws IOException
+  {
+	  return DurableStoutList.open(dir, ElementCodec.INT, NODE_SIZE, FsyncPolicy.NEVER);
+  }
+
+  private DurableStoutList<Integer> open(boolean indexMembership) throws IOException
+  {
+	  return DurableStoutList.open(dir, ElementCodec.INT, NODE_SIZE, indexMembership, FsyncPolicy.NEVER);
+  }
+
+  /**
+   * Returns the journal of the current generation, the only one left after
+   * a list has been opened.
+   */
+  private Path journal() throws IOException
+  {
+	  try (Stream<Path> files = Files.list(dir)) {
+		  return files.filter(file -> file.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow();
+	  }
+  }
+
+  /**
+   * Applies one random change to the list and the model.
+   */
+  private static void mutate(DurableStoutList<Integer> list, List<Integer> model, Random random)
+  {
+	  Integer item = random.nextInt(200);
+	  int pos = random.nextInt(model.size() + 1);
+	  switch (random.nextInt(7)) {
+	  case 0:
+		  boolean absent = !model.contains(item);
+		  assertEquals(absent, list.add(item));
+		  if (absent)
+			  model.add(item);
+		  break;
+	  case 1:
+		  list.add(pos, item);
+		  model.add(pos, item);
+		  break;
+	  case 2:
+		  if (pos < model.size())
+			  assertEquals(model.remove(pos), list.remove(pos));
+		  break;
+	  case 3:
+		  if (pos < model.size())
+			  assertEquals(model.set(pos, item), list.set(pos, item));
+		  break;
+	  case 4:
+		  assertEquals(model.remove(item), list.remove(item));
+		  break;
+	  case 5:
+		  if (!model.contains(item))
+			  model.add(0, item);
+		  list.push(item);
+		  break;
+	  default:
+		  assertEquals(model.isEmpty() ? null : model.remove(model.size() - 1), list.pollLast());
+	  }
+  }
+}
@@ -0,0 +1,163 @@
+package edu.iastate.cs228.hw3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs LongStoutList side by side with an ArrayList through long sequences of
+ * random operations, and checks the nodes of the list after every one.
+ */
+public class LongStoutListTest
+{
+  /**
+   * Number of lists built by the test, and operations applied to each.
+   */
+  private static final int ROUNDS = 200, OPERATIONS = 300;
+
+  /**
+   * A node in the output of toStringInternal(), with its slots in group 1.
+   */
+  private static final Pattern NODE = Pattern.compile("\\(([^)]*)\\)");
+
+  /**
+   * Positional operations, searches, iterator removals and sorting.  Small
+   * nodes make splits, borrows and merges frequent; every node except the
+   * last one stays at least half full.
+   */
+  @Test
+  public void matchesArrayList()
+  {
+	  Random random = new Random(11);
+	  for (int round = 0; round < ROUNDS; round++) {
+		  int nodeSize = 2 * (1 + random.nextInt(4));
+		  int range = 10 + random.nextInt(300);
+		  LongStoutList list = new LongStoutList(nodeSize);
+		  List<Long> model = new ArrayList<>();
+
+		  for (int k = 0; k < OPERATIONS; k++) {
+			  long item = (random.nextInt(range) - range / 2) * 3_000_000_000L;
+			  int pos = random.nextInt(model.size() + 1);
+			  switch (random.nextInt(12)) {
+			  case 0:
+			  case 1:
+				  list.addLong(item);
+				  model.add(item);
+				  break;
+			  case 2:
+			  case 3:
+				  list.addLong(pos, item);
+				  model.add(pos, item);
+				  break;
+			  case 4:
+			  case 5:
+				  if (pos < model.size())
+					  assertEquals(model.remove(pos), list.removeAt(pos));
+				  break;
+			  case 6:
+				  if (pos < model.size())
+					  assertEquals(model.set(pos, item), list.setLong(pos, item));
+				  break;
+			  case 7:
+				  // Remove some elements through the iterator
+				  PrimitiveIterator.OfLong iter = list.iterator();
+				  for (int i = 0; iter.hasNext(); i++) {
+					  assertEquals(model.get(i), iter.nextLong());
+					  if (random.nextInt(4) == 0) {
+						  iter.remove();
+						  model.remove(i--);
+						  assertThrows(IllegalStateException.class, iter::remove);
+					  }
+				  }
+				  break;
+			  case 8:
+				  if (random.nextInt(10) == 0) {
+					  list.sort();
+					  model.sort(null);
+				  }
+				  break;
+			  default:
+				  assertEquals(model.contains(item), list.contains(item));
+				  assertEquals(model.indexOf(item), list.indexOf(item));
+				  if (pos < model.size())
+					  assertEquals(model.get(pos), list.getLong(pos));
+			  }
+			  checkNodes(list, model, nodeSize);
+		  }
+	  }
+  }
+
+  /**
+   * The iterator fails fast once the list changes behind it, and positions
+   * outside the list are refused.
+   */
+  @Test
+  public void rejectsStaleIteratorsAndBadPositions()
+  {
+	  LongStoutList list = new LongStoutList();
+	  for (int i = 0; i < 10; i++)
+		  list.addLong(i);
+	  PrimitiveIterator.OfLong iter = list.iterator();
+	  iter.nextLong();
+	  list.removeAt(5);
+	  assertThrows(ConcurrentModificationException.class, iter::nextLong);
+	  assertThrows(ConcurrentModificationException.class, iter::remove);
+
+	  assertThrows(IndexOutOfBoundsException.class, () -> list.getLong(9));
+	  assertThrows(IndexOutOfBoundsException.class, () -> list.removeAt(-1));
+	  assertThrows(IndexOutOfBoundsException.class, () -> list.addLong(10, 0));
+	  assertThrows(IllegalArgumentException.class, () -> new LongStoutList(3));
+	  assertFalse(list.isEmpty());
+  }
+
+  /**
+   * Checks that the list holds the same elements as the model and that its
+   * nodes, as toStringInternal() shows them, are well formed: each node
+   * holds between one and nodeSize elements followed by its empty slots,
+   * and every node except the last is at least half full.
+   */
+  private static void checkNodes(LongStoutList list, List<Long> model, int nodeSize)
+  {
+	  assertEquals(model.size(), list.size());
+	  String internal = list.toStringInternal();
+	  List<String[]> nodes = new ArrayList<>();
+	  for (Matcher node = NODE.matcher(internal); node.find(); )
+		  nodes.add(node.group(1).split(", "));
+
+	  int total = 0;
+	  for (int k = 0; k < nodes.size(); k++) {
+		  String[] slots = nodes.get(k);
+		  assertEquals(nodeSize, slots.length);
+		  int count = 0;
+		  while (count < nodeSize && !slots[count].equals("-"))
+			  count++;
+		  assertTrue(count >= 1, "empty node: " + internal);
+		  if (k < nodes.size() - 1)
+			  assertTrue(count >= nodeSize / 2, "node less than half full: " + internal);
+		  for (int i = 0; i < count; i++)
+			  assertEquals(String.valueOf(model.get(total + i)), slots[i]);
+		  for (int i = count; i < nodeSize; i++)
+			  assertEquals("-", slots[i], "unused slot not cleared");
+		  total += count;
+	  }
+	  assertEquals(model.size(), total);
+	  assertEquals(model.toString(), list.toString());
+
+	  long[] expected = new long[model.size()];
+	  for (int i = 0; i < expected.length; i++)
+		  expected[i] = model.get(i);
+	  assertArrayEquals(expected, list.toArray());
+  }
+}
@@ -0,0 +1,120 @@
+package edu.iastate.cs228.hw3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Maps files written by StoutList.writeTo(), whole, cut short and with
+ * corrupt headers.
+ */
+public class MappedStoutListTest
+{
+  private static final int NODE_SIZE = 4;
+
+  @TempDir
+  Path dir;
+
+  /**
+   * A mapped list holds the elements of the list that was written, in
+   * order, however full its nodes were.
+   */
+  @Test
+  public void roundTrip() throws IOException
+  {
+	  Random random = new Random(12);
+	  for (int round = 0; round < 20; round++) {
+		  StoutList<Integer> list = new StoutList<>(NODE_SIZE);
+		  List<Integer> model = new ArrayList<>();
+		  for (int i = random.nextInt(round * 50 + 1); i > 0; i--) {
+			  int pos = random.nextInt(model.size() + 1);
+			  list.add(pos, i);
+			  model.add(pos, i);
+		  }
+		  Path file = dir.resolve("list" + round);
+		  list.writeTo(file, ElementCodec.INT);
+
+		  MappedStoutList<Integer> mapped = MappedStoutList.open(file, ElementCodec.INT);
+		  assertEquals(NODE_SIZE, mapped.nodeSize());
+		  assertEquals(model, mapped);
+		  for (int i = 0; i < model.size(); i++)
+			  assertEquals(model.get(i), mapped.get(i));
+	  }
+  }
+
+  /**
+   * A file cut short anywhere is rejected.
+   */
+  @Test
+  public void truncatedFile() throws IOException
+  {
+	  byte[] bytes = write(30);
+	  for (int length = 0; length < bytes.length; length++) {
+		  Path file = dir.resolve("truncated");
+		  Files.write(file, Arrays.copyOf(bytes, length));
+		  assertThrows(IOException.class, () -> MappedStoutList.open(file, ElementCodec.INT));
+	  }
+  }
+
+  /**
+   * A header whose fields disagree with each other, with the codec or with
+   * the length of the file is rejected with an IOException, before anything
+   * is sized from it.  The node count and size fields in particular are
+   * never trusted to allocate.
+   */
+  @Test
+  public void corruptHeader() throws IOException
+  {
+	  byte[] bytes = write(30);
+	  int[][] fields = {
+		  { 0, 0 },                     // magic
+		  { 4, MappedStoutList.VERSION + 1 },
+		  { 8, 0 },                     // node size
+		  { 8, 1 },                     // node size smaller than the node counts
+		  { 12, Long.BYTES },           // element width
+		  { 16, -1 },                   // node count
+		  { 16, Integer.MAX_VALUE },
+		  { 16, 1 << 28 },
+		  { 16, 7 },                    // the list has 8 nodes
+		  { 16, 9 },
+		  { 20, -1 },                   // size
+		  { 20, Integer.MAX_VALUE },
+		  { 20, 29 },
+		  { 24, 0 },                    // count of the first node
+		  { 24, NODE_SIZE + 1 },
+	  };
+	  for (int[] field : fields) {
+		  Path file = dir.resolve("corrupt");
+		  ByteBuffer buf = ByteBuffer.wrap(bytes.clone()).order(MappedStoutList.ORDER);
+		  buf.putInt(field[0], field[1]);
+		  Files.write(file, buf.array());
+		  assertThrows(IOException.class, () -> MappedStoutList.open(file, ElementCodec.INT),
+				  "field at " + field[0] + " set to " + field[1]);
+	  }
+  }
+
+  /**
+   * Returns the file written for a list of the elements 0 to n-1.
+   */
+  private byte[] write(int n) throws IOException
+  {
+	  StoutList<Integer> list = new StoutList<>(NODE_SIZE);
+	  for (int i = 0; i < n; i++)
+		  list.add(i);
+	  Path file = dir.resolve("whole");
+	  list.writeTo(file, ElementCodec.INT);
+	  assertEquals(list, MappedStoutList.open(file, ElementCodec.INT));
+	  return Files.readAllBytes(file);
+  }
+}
@@ -0,0 +1,240 @@
+package edu.iastate.cs228.hw3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs OffHeapStoutList side by side with an ArrayList through long sequences
+ * of random operations, and checks the nodes of the list after every one.
+ */
+public class OffHeapStoutListTest
+{
+  /**
+   * Number of lists built by the test, and operations applied to each.
+   */
+  private static final int ROUNDS = 200, OPERATIONS = 300;
+
+  /**
+   * Size in bytes of a slab of 1024 nodes of four ints: a 12-byte header and
+   * 16 bytes of elements, rounded up to 32.
+   */
+  private static final int SLAB_BYTES = 32 * 1024;
+
+  /**
+   * A node in the output of toStringInternal(), with its slots in group 1.
+   */
+  private static final Pattern NODE = Pattern.compile("\\(([^)]*)\\)");
+
+  /**
+   * Positional operations, and walks with a list iterator that moves both
+   * ways and changes the list as it goes.  Insertions and removals inside
+   * large nodes shift elements over overlapping ranges of a node record.
+   */
+  @Test
+  public void matchesArrayList()
+  {
+	  Random random = new Random(11);
+	  for (int round = 0; round < ROUNDS; round++) {
+		  int nodeSize = 2 * (1 + random.nextInt(8));
+		  OffHeapStoutList<Integer> list = new OffHeapStoutList<>(ElementCodec.INT, nodeSize);
+		  List<Integer> model = new ArrayList<>();
+
+		  for (int k = 0; k < OPERATIONS; k++) {
+			  Integer item = random.nextInt(1000) - 500;
+			  int pos = random.nextInt(model.size() + 1);
+			  switch (random.nextInt(8)) {
+			  case 0:
+			  case 1:
+				  // add(E) appends, duplicates included
+				  assertTrue(list.add(item));
+				  model.add(item);
+				  break;
+			  case 2:
+			  case 3:
+				  list.add(pos, item);
+				  model.add(pos, item);
+				  break;
+			  case 4:
+			  case 5:
+				  if (pos < model.size())
+					  assertEquals(model.remove(pos), list.remove(pos));
+				  break;
+			  case 6:
+				  if (pos < model.size())
+					  assertEquals(model.set(pos, item), list.set(pos, item));
+				  break;
+			  default:
+				  walk(list.listIterator(pos), model.listIterator(pos), random);
+			  }
+			  checkNodes(list, model, nodeSize);
+		  }
+	  }
+  }
+
+  /**
+   * Steps both iterators together at random, comparing what they return and
+   * applying the same changes through both.
+   */
+  private static void walk(ListIterator<Integer> iter, ListIterator<Integer> expected, Random random)
+  {
+	  for (int step = 0; step < 20; step++) {
+		  assertEquals(expected.hasNext(), iter.hasNext());
+		  assertEquals(expected.hasPrevious(), iter.hasPrevious());
+		  assertEquals(expected.nextIndex(), iter.nextIndex());
+		  assertEquals(expected.previousIndex(), iter.previousIndex());
+		  Integer item = random.nextInt(1000);
+		  switch (random.nextInt(6)) {
+		  case 0:
+			  if (expected.hasNext())
+				  assertEquals(expected.next(), iter.next());
+			  break;
+		  case 1:
+			  if (expected.hasPrevious())
+				  assertEquals(expected.previous(), iter.previous());
+			  break;
+		  case 2:
+			  expected.add(item);
+			  iter.add(item);
+			  // Neither set() nor remove() may follow an add()
+			  assertThrows(IllegalStateException.class, () -> iter.set(item));
+			  assertThrows(IllegalStateException.class, iter::remove);
+			  break;
+		  case 3:
+			  try {
+				  expected.set(item);
+			  } catch (IllegalStateException e) {
+				  assertThrows(IllegalStateException.class, () -> iter.set(item));
+				  break;
+			  }
+			  iter.set(item);
+			  break;
+		  default:
+			  try {
+				  expected.remove();
+			  } catch (IllegalStateException e) {
+				  assertThrows(IllegalStateException.class, iter::remove);
+				  break;
+			  }
+			  iter.remove();
+		  }
+	  }
+  }
+
+  /**
+   * Nodes emptied by removals go on the free list and are handed out again
+   * before any new slab is allocated, and the slabs grow one at a time past
+   * 1024 nodes.
+   */
+  @Test
+  public void reusesFreeNodesAndGrowsBySlab()
+  {
+	  OffHeapStoutList<Integer> list = new OffHeapStoutList<>(ElementCodec.INT, 4);
+	  List<Integer> model = new ArrayList<>();
+	  assertEquals(SLAB_BYTES, list.offHeapBytes());
+
+	  // 1022 full nodes and the two dummies fill the first slab
+	  for (int i = 0; i < 1022 * 4; i++) {
+		  list.add(i);
+		  model.add(i);
+	  }
+	  assertEquals(SLAB_BYTES, list.offHeapBytes());
+	  list.add(-1);
+	  model.add(-1);
+	  assertEquals(2 * SLAB_BYTES, list.offHeapBytes());
+
+	  // Emptying the list and filling it again reuses the freed nodes
+	  for (int cycle = 0; cycle < 5; cycle++) {
+		  for (int i = model.size() - 1; i >= 0; i--)
+			  assertEquals(model.remove(i), list.remove(i));
+		  for (int i = 0; i < 1022 * 4 + 1; i++) {
+			  list.add(i);
+			  model.add(i);
+		  }
+		  assertEquals(2 * SLAB_BYTES, list.offHeapBytes());
+	  }
+	  checkNodes(list, model, 4);
+
+	  // So does churn in the middle of the list, which leaves at most about
+	  // twice as many nodes, half full, as there are full ones now
+	  Random random = new Random(3);
+	  for (int cycle = 0; cycle < 20; cycle++) {
+		  for (int k = 0; k < 2000; k++) {
+			  int pos = random.nextInt(model.size());
+			  assertEquals(model.remove(pos), list.remove(pos));
+		  }
+		  for (int k = 0; k < 2000; k++) {
+			  int pos = random.nextInt(model.size() + 1);
+			  list.add(pos, k);
+			  model.add(pos, k);
+		  }
+		  assertTrue(list.offHeapBytes() <= 3 * SLAB_BYTES, list.offHeapBytes() + " bytes");
+	  }
+	  checkNodes(list, model, 4);
+
+	  list.clear();
+	  assertEquals(SLAB_BYTES, list.offHeapBytes());
+	  assertTrue(list.isEmpty());
+  }
+
+  /**
+   * An iterator fails fast once the list changes behind it.
+   */
+  @Test
+  public void iteratorFailsFast()
+  {
+	  OffHeapStoutList<Integer> list = new OffHeapStoutList<>(ElementCodec.INT);
+	  for (int i = 0; i < 10; i++)
+		  list.add(i);
+	  ListIterator<Integer> iter = list.listIterator(5);
+	  iter.previous();
+	  list.add(0, 10);
+	  assertThrows(ConcurrentModificationException.class, iter::next);
+	  assertThrows(ConcurrentModificationException.class, iter::remove);
+	  assertThrows(NullPointerException.class, () -> list.add(null));
+  }
+
+  /**
+   * Checks that the list holds the same elements as the model and that its
+   * nodes, as toStringInternal() shows them, are well formed: each node
+   * holds between one and nodeSize elements followed by its empty slots,
+   * and every node except the last is at least half full.
+   */
+  private static void checkNodes(OffHeapStoutList<Integer> list, List<Integer> model, int nodeSize)
+  {
+	  assertEquals(model.size(), list.size());
+	  String internal = list.toStringInternal();
+	  List<String[]> nodes = new ArrayList<>();
+	  for (Matcher node = NODE.matcher(internal); node.find(); )
+		  nodes.add(node.group(1).split(", "));
+
+	  int total = 0;
+	  for (int k = 0; k < nodes.size(); k++) {
+		  String[] slots = nodes.get(k);
+		  assertEquals(nodeSize, slots.length);
+		  int count = 0;
+		  while (count < nodeSize && !slots[count].equals("-"))
+			  count++;
+		  assertTrue(count >= 1, "empty node: " + internal);
+		  if (k < nodes.size() - 1)
+			  assertTrue(count >= nodeSize / 2, "node less than half full: " + internal);
+		  for (int i = 0; i < count; i++)
+			  assertEquals(String.valueOf(model.get(total + i)), slots[i]);
+		  for (int i = count; i < nodeSize; i++)
+			  assertEquals("-", slots[i], "unused slot not cleared");
+		  total += count;
+	  }
+	  assertEquals(model.size(), total);
+	  assertEquals(model, new ArrayList<>(list));
+  }
+}
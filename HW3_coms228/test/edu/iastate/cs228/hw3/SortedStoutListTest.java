@@ -0,0 +1,109 @@
+package edu.iastate.cs228.hw3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs SortedStoutList side by side with a TreeSet through long sequences of
+ * random operations, and checks the nodes of the list after every one.
+ */
+public class SortedStoutListTest
+{
+  /**
+   * Number of lists built by the test, and operations applied to each.
+   */
+  private static final int ROUNDS = 200, OPERATIONS = 300;
+
+  /**
+   * Insertions one at a time and in bulk, removals, and the order queries,
+   * in natural and in reverse order.
+   */
+  @Test
+  public void matchesTreeSet()
+  {
+	  Random random = new Random(17);
+	  for (int round = 0; round < ROUNDS; round++) {
+		  int nodeSize = 2 * (1 + random.nextInt(4));
+		  int range = 10 + random.nextInt(500);
+		  Comparator<Integer> order = random.nextBoolean() ? null : Comparator.reverseOrder();
+		  SortedStoutList<Integer> list = new SortedStoutList<>(nodeSize, order);
+		  TreeSet<Integer> model = new TreeSet<>(order);
+
+		  for (int k = 0; k < OPERATIONS; k++) {
+			  Integer item = random.nextInt(range), other = random.nextInt(range);
+			  switch (random.nextInt(10)) {
+			  case 0:
+			  case 1:
+				  // insert() returns the position the element went to
+				  int expected = model.contains(item) ? -1 : model.headSet(item).size();
+				  assertEquals(expected, list.insert(item));
+				  model.add(item);
+				  break;
+			  case 2:
+				  assertEquals(model.add(item), random.nextBoolean() ? list.add(item) : list.offer(item));
+				  break;
+			  case 3:
+				  // Small collections are inserted one by one, larger ones merged
+				  List<Integer> items = new ArrayList<>();
+				  for (int i = random.nextInt(random.nextBoolean() ? 4 : range); i > 0; i--)
+					  items.add(random.nextInt(range));
+				  assertEquals(model.addAll(items), list.addAll(items));
+				  break;
+			  case 4:
+			  case 5:
+				  assertEquals(model.remove(item), list.remove(item));
+				  break;
+			  case 6:
+				  assertEquals(model.pollFirst(), list.pollFirst());
+				  break;
+			  case 7:
+				  assertEquals(model.floor(item), list.floor(item));
+				  assertEquals(model.ceiling(item), list.ceiling(item));
+				  break;
+			  case 8:
+				  List<Integer> inRange = new ArrayList<>();
+				  for (Iterator<Integer> iter = list.range(item, other); iter.hasNext(); )
+					  inRange.add(iter.next());
+				  boolean empty = model.comparator() == null ? item >= other : item <= other;
+				  assertEquals(empty ? List.of() : new ArrayList<>(model.subSet(item, other)), inRange);
+				  break;
+			  default:
+				  // indexOf() goes through the same lower bound search as insert()
+				  int pos = model.contains(item) ? model.headSet(item).size() : -1;
+				  assertEquals(pos, list.indexOf(item));
+				  assertEquals(pos, list.lastIndexOf(item));
+				  assertEquals(model.contains(item), list.contains(item));
+			  }
+			  StoutListTest.checkNodes(list, new ArrayList<>(model), nodeSize, true);
+		  }
+	  }
+  }
+
+  /**
+   * The methods that would place an element at a given position are
+   * refused.
+   */
+  @Test
+  public void refusesPositionalInsertions()
+  {
+	  SortedStoutList<Integer> list = new SortedStoutList<>(List.of(3, 1, 2), 4);
+	  assertThrows(UnsupportedOperationException.class, () -> list.add(0, 5));
+	  assertThrows(UnsupportedOperationException.class, () -> list.set(0, 5));
+	  assertThrows(UnsupportedOperationException.class, () -> list.push(5));
+	  assertThrows(UnsupportedOperationException.class, () -> list.addFirst(5));
+	  assertThrows(UnsupportedOperationException.class, () -> list.offerLast(5));
+	  assertThrows(UnsupportedOperationException.class, () -> list.listIterator().add(5));
+	  assertEquals(List.of(1, 2, 3), list);
+	  list.offer(0);
+	  assertEquals(0, list.peek());
+  }
+}
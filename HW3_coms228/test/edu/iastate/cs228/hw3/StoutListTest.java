@@ -0,0 +1,691 @@
+package edu.iastate.cs228.hw3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs StoutList side by side with an ArrayList through long sequences of
+ * random operations, and checks the nodes of the list after every one.
+ */
+public class StoutListTest
+{
+  /**
+   * Number of lists built by each test, and operations applied to each.
+   */
+  private static final int ROUNDS = 200, OPERATIONS = 300;
+
+  /**
+   * Positional and membership operations.  These keep every node except the
+   * last one at least half full.  Snapshots taken along the way keep the
+   * elements the list had.
+   */
+  @Test
+  public void matchesArrayList()
+  {
+	  Random random = new Random(228);
+	  for (int round = 0; round < ROUNDS; round++) {
+		  int nodeSize = 2 * (1 + random.nextInt(4));
+		  int range = 10 + random.nextInt(300);
+		  StoutList<Integer> list = new StoutList<>(nodeSize, random.nextBoolean());
+		  List<Integer> model = new ArrayList<>();
+		  List<List<Integer>> snapshots = new ArrayList<>(), expectedSnapshots = new ArrayList<>();
+
+		  for (int k = 0; k < OPERATIONS; k++) {
+			  Integer item = random.nextInt(range);
+			  int pos = random.nextInt(model.size() + 1);
+			  switch (random.nextInt(12)) {
+			  case 0:
+			  case 1:
+				  // add(E) appends only elements that are not in the list yet
+				  boolean absent = !model.contains(item);
+				  assertEquals(absent, list.add(item));
+				  if (absent)
+					  model.add(item);
+				  break;
+			  case 2:
+			  case 3:
+				  list.add(pos, item);
+				  model.add(pos, item);
+				  break;
+			  case 4:
+			  case 5:
+				  if (pos < model.size())
+					  assertEquals(model.remove(pos), list.remove(pos));
+				  break;
+			  case 6:
+				  assertEquals(model.remove(item), list.remove(item));
+				  break;
+			  case 7:
+				  if (pos < model.size())
+					  assertEquals(model.set(pos, item), list.set(pos, item));
+				  break;
+			  case 8:
+				  // Walk both iterators to the position and change the list there
+				  ListIterator<Integer> iter = list.listIterator(pos);
+				  ListIterator<Integer> expected = model.listIterator(pos);
+				  if (random.nextBoolean() && expected.hasNext()) {
+					  assertEquals(expected.next(), iter.next());
+					  expected.remove();
+					  iter.remove();
+				  } else {
+					  expected.add(item);
+					  iter.add(item);
+				  }
+				  break;
+			  case 9:
+				  snapshots.add(list.snapshot());
+				  expectedSnapshots.add(new ArrayList<>(model));
+				  break;
+			  default:
+				  assertEquals(model.contains(item), list.contains(item));
+				  assertEquals(model.indexOf(item), list.indexOf(item));
+				  assertEquals(model.lastIndexOf(item), list.lastIndexOf(item));
+				  assertArrayEquals(model.toArray(), list.toArray());
+				  assertArrayEquals(model.toArray(new Integer[0]), list.toArray(new Integer[0]));
+				  assertTrue(list.equals(model));
+				  assertEquals(model.hashCode(), list.hashCode());
+			  }
+			  checkNodes(list, model, nodeSize, false);
+		  }
+		  for (int i = 0; i < snapshots.size(); i++)
+			  assertEquals(expectedSnapshots.get(i), new ArrayList<>(snapshots.get(i)));
+	  }
+  }
+
+  /**
+   * Insertions and removals at the first and last positions, which turn the
+   * ring buffers of the end nodes around, mixed with a few in between.
+   */
+  @Test
+  public void matchesArrayListAtTheEnds()
+  {
+	  Random random = new Random(19);
+	  for (int round = 0; round < ROUNDS; round++) {
+		  int nodeSize = 2 * (1 + random.nextInt(4));
+		  StoutList<Integer> list = new StoutList<>(nodeSize);
+		  List<Integer> model = new ArrayList<>();
+
+		  for (int k = 0; k < OPERATIONS; k++) {
+			  Integer item = random.nextInt(1000);
+			  int pos = random.nextInt(model.size() + 1);
+			  switch (random.nextInt(6)) {
+			  case 0:
+				  list.add(0, item);
+				  model.add(0, item);
+				  break;
+			  case 1:
+				  list.add(model.size(), item);
+				  model.add(item);
+				  break;
+			  case 2:
+				  if (!model.isEmpty())
+					  assertEquals(model.remove(0), list.remove(0));
+				  break;
+			  case 3:
+				  int last = model.size() - 1;
+				  if (last >= 0)
+					  assertEquals(model.remove(last), list.remove(last));
+				  break;
+			  case 4:
+				  list.add(pos, item);
+				  model.add(pos, item);
+				  break;
+			  default:
+				  if (pos < model.size())
+					  assertEquals(model.remove(pos), list.remove(pos));
+			  }
+			  checkNodes(list, model, nodeSize, false);
+		  }
+	  }
+  }
+
+  /**
+   * Deque operations at both ends, bulk removal, cutting the list and
+   * joining it again, batches of edits and compaction, with snapshots taken
+   * along the way.  The first node is exempt from the half-full rule once
+   * elements have been added or removed at the front.
+   */
+  @Test
+  public void matchesArrayListInBulk()
+  {
+	  Random random = new Random(3);
+	  for (int round = 0; round < ROUNDS; round++) {
+		  int nodeSize = 2 * (1 + random.nextInt(4));
+		  int range = 10 + random.nextInt(300);
+		  StoutList<Integer> list = new StoutList<>(nodeSize, random.nextBoolean());
+		  List<Integer> model = new ArrayList<>();
+		  List<List<Integer>> snapshots = new ArrayList<>(), expectedSnapshots = new ArrayList<>();
+
+		  for (int k = 0; k < OPERATIONS; k++) {
+			  Integer item = random.nextInt(range);
+			  switch (random.nextInt(10)) {
+			  case 0:
+			  case 1:
+				  boolean absent = !model.contains(item);
+				  assertEquals(absent, list.offerFirst(item));
+				  if (absent)
+					  model.add(0, item);
+				  break;
+			  case 2:
+				  list.addLast(item);
+				  if (!model.contains(item))
+					  model.add(item);
+				  break;
+			  case 3:
+				  assertEquals(model.isEmpty() ? null : model.remove(0), list.pollFirst());
+				  break;
+			  case 4:
+				  assertEquals(model.isEmpty() ? null : model.remove(model.size() - 1), list.pollLast());
+				  break;
+			  case 5:
+				  int divisor = 2 + random.nextInt(5);
+				  assertEquals(model.removeIf(x -> x % divisor == 0), list.removeIf(x -> x % divisor == 0));
+				  break;
+			  case 6:
+				  StoutList<Integer> back = list.splitAt(random.nextInt(model.size() + 1));
+				  checkNodes(back, model.subList(list.size(), model.size()), nodeSize, true);
+				  list.concat(back);
+				  break;
+			  case 7:
+				  // Enough edits that the batch is usually applied in one pass
+				  List<Edit<Integer>> edits = new ArrayList<>();
+				  for (int e = random.nextInt(2 * nodeSize + 2); e > 0; e--) {
+					  int pos = random.nextInt(model.size() + 1);
+					  Integer value = random.nextInt(range);
+					  if (pos < model.size() && random.nextBoolean()) {
+						  edits.add(Edit.remove(pos));
+						  model.remove(pos);
+					  } else if (pos < model.size() && random.nextBoolean()) {
+						  edits.add(Edit.set(pos, value));
+						  model.set(pos, value);
+					  } else {
+						  edits.add(Edit.insert(pos, value));
+						  model.add(pos, value);
+					  }
+				  }
+				  list.applyBatch(edits);
+				  break;
+			  case 8:
+				  list.compact(0.5 + random.nextDouble() / 2);
+				  break;
+			  default:
+				  snapshots.add(list.snapshot());
+				  expectedSnapshots.add(new ArrayList<>(model));
+			  }
+			  checkNodes(list, model, nodeSize, true);
+		  }
+		  for (int i = 0; i < snapshots.size(); i++)
+			  assertEquals(expectedSnapshots.get(i), new ArrayList<>(snapshots.get(i)));
+	  }
+  }
+
+  /**
+   * A removal near the end of the list after a snapshot copies the nodes
+   * from the first removal on and the index path to them, not all 2500
+   * nodes of the list.
+   */
+  @Test
+  public void sweepAfterSnapshotCopiesRewrittenNodesOnly()
+  {
+	  List<Integer> model = new ArrayList<>();
+	  for (int i = 0; i < 10000; i++)
+		  model.add(i);
+	  StoutList<Integer> list = new StoutList<>(model, 4);
+	  List<Integer> snapshot = list.snapshot();
+	  Set<StoutList<Integer>.Node> shared = nodes(list);
+
+	  list.removeIf(x -> x >= 9980 && x % 3 == 0);
+	  model.removeIf(x -> x >= 9980 && x % 3 == 0);
+	  checkNodes(list, model, 4, false);
+	  assertTrue(copied(list, shared) < 64, "copied " + copied(list, shared) + " nodes");
+	  assertEquals(10000, snapshot.size());
+	  assertEquals(9999, snapshot.get(9999));
+  }
+
+  /**
+   * A batch of edits near the end of the list after a snapshot copies the
+   * nodes from the first edit on and the index path to them.  The 400
+   * elements added take 100 new nodes and 50 old ones are rewritten, out of
+   * the 2500 the list had.
+   */
+  @Test
+  public void batchAfterSnapshotCopiesRewrittenNodesOnly()
+  {
+	  List<Integer> model = new ArrayList<>();
+	  for (int i = 0; i < 10000; i++)
+		  model.add(i);
+	  StoutList<Integer> list = new StoutList<>(model, 4);
+	  List<Integer> snapshot = list.snapshot();
+	  Set<StoutList<Integer>.Node> shared = nodes(list);
+
+	  List<Edit<Integer>> edits = new ArrayList<>();
+	  for (int i = 0; i < 400; i++) {
+		  edits.add(Edit.insert(9800 + i, 20000 + i));
+		  model.add(9800 + i, 20000 + i);
+	  }
+	  list.applyBatch(edits);
+	  checkNodes(list, model, 4, false);
+	  assertTrue(copied(list, shared) < 200, "copied " + copied(list, shared) + " nodes");
+	  assertEquals(10000, snapshot.size());
+	  assertEquals(9999, snapshot.get(9999));
+  }
+
+  /**
+   * Compacting a list after a snapshot copies the nodes that change and the
+   * index paths to them.  Here only the nodes after a removal near the end
+   * are short, so a few dozen of the 2500 nodes are copied.
+   */
+  @Test
+  public void compactAfterSnapshotCopiesChangedNodesOnly()
+  {
+	  List<Integer> model = new ArrayList<>();
+	  for (int i = 0; i < 10000; i++)
+		  model.add(i);
+	  StoutList<Integer> list = new StoutList<>(model, 4);
+	  List<Integer> snapshot = list.snapshot();
+	  Set<StoutList<Integer>.Node> shared = nodes(list);
+
+	  assertEquals(model.remove(9990), list.remove(9990));
+	  list.compact();
+	  checkNodes(list, model, 4, false);
+	  assertEquals(1.0, list.occupancy(), 1.0 / 2500);
+	  assertTrue(copied(list, shared) < 64, "copied " + copied(list, shared) + " nodes");
+	  assertEquals(10000, snapshot.size());
+	  assertEquals(9990, snapshot.get(9990));
+  }
+
+  /**
+   * parallelSort() above the threshold sorts like a stable sequential sort:
+   * elements with the same key keep their order.  The lists are built by
+   * random insertions, so their nodes are only partly full, and afterwards
+   * every node except the last is full.
+   */
+  @Test
+  public void parallelSortIsStable()
+  {
+	  Random random = new Random(5);
+	  Comparator<Integer> byKey = Comparator.comparing(x -> x / 1000);
+	  for (int round = 0; round < 20; round++) {
+		  int nodeSize = 2 * (1 + random.nextInt(4));
+		  int n = round == 0 ? 20000 : 500 + random.nextInt(3000);
+		  StoutList<Integer> list = new StoutList<>(nodeSize);
+		  if (round > 0)
+			  list.setParallelSortThreshold(1 + random.nextInt(n / 2));
+		  List<Integer> model = new ArrayList<>();
+		  for (int i = 0; i < n; i++) {
+			  // Distinct elements whose keys repeat, in no particular order
+			  int pos = random.nextInt(model.size() + 1);
+			  Integer item = random.nextInt(50) * 1000 + i;
+			  list.add(pos, item);
+			  model.add(pos, item);
+		  }
+
+		  Comparator<Integer> comp = random.nextBoolean() ? byKey : null;
+		  list.parallelSort(comp);
+		  model.sort(comp);
+		  checkNodes(list, model, nodeSize, false);
+		  for (StoutList<Integer>.Node node = list.head.next; node.next != list.tail; node = node.next)
+			  assertEquals(nodeSize, node.count, "node not full after sorting");
+	  }
+  }
+
+  /**
+   * Splitting a spliterator over and over keeps the size estimates exact:
+   * the parts always add up to the size of the list, and traversing them in
+   * order yields the list.
+   */
+  @Test
+  public void spliteratorSplitsExactly()
+  {
+	  Random random = new Random(7);
+	  for (int round = 0; round < ROUNDS; round++) {
+		  int nodeSize = 2 * (1 + random.nextInt(4));
+		  StoutList<Integer> list = new StoutList<>(nodeSize);
+		  List<Integer> model = new ArrayList<>();
+		  for (int i = random.nextInt(500); i > 0; i--) {
+			  int pos = random.nextInt(model.size() + 1);
+			  list.add(pos, i);
+			  model.add(pos, i);
+		  }
+
+		  // Possibly start traversing before splitting
+		  List<Integer> seen = new ArrayList<>();
+		  List<Spliterator<Integer>> parts = new ArrayList<>();
+		  parts.add(list.spliterator());
+		  if (random.nextBoolean())
+			  parts.get(0).tryAdvance(seen::add);
+
+		  // Split random parts, keeping them in order
+		  for (int k = 0; k < 100; k++) {
+			  int i = random.nextInt(parts.size());
+			  Spliterator<Integer> prefix = parts.get(i).trySplit();
+			  if (prefix != null) {
+				  assertTrue(prefix.hasCharacteristics(Spliterator.SUBSIZED));
+				  assertTrue(prefix.estimateSize() > 0 && parts.get(i).estimateSize() > 0, "empty part");
+				  parts.add(i, prefix);
+			  }
+			  long total = seen.size();
+			  for (Spliterator<Integer> part : parts)
+				  total += part.getExactSizeIfKnown();
+			  assertEquals(model.size(), total);
+		  }
+		  for (Spliterator<Integer> part : parts) {
+			  long before = seen.size();
+			  long estimate = part.estimateSize();
+			  part.forEachRemaining(seen::add);
+			  assertEquals(estimate, seen.size() - before);
+		  }
+		  assertEquals(model, seen);
+	  }
+  }
+
+  /**
+   * A spliterator binds to the list when first used.  A modification before
+   * that is seen by it; one after that makes it throw.
+   */
+  @Test
+  public void spliteratorFailsFast()
+  {
+	  StoutList<Integer> list = new StoutList<>(4);
+	  for (int i = 0; i < 20; i++)
+		  list.add(i);
+
+	  Spliterator<Integer> late = list.spliterator();
+	  list.add(20);
+	  assertEquals(21, late.estimateSize());
+
+	  List<Integer> seen = new ArrayList<>();
+	  assertTrue(late.tryAdvance(seen::add));
+	  list.remove(10);
+	  assertThrows(ConcurrentModificationException.class, () -> late.tryAdvance(seen::add));
+
+	  Spliterator<Integer> whole = list.spliterator();
+	  Spliterator<Integer> prefix = whole.trySplit();
+	  list.add(0, 100);
+	  assertThrows(ConcurrentModificationException.class, () -> prefix.forEachRemaining(seen::add));
+	  assertThrows(ConcurrentModificationException.class, () -> whole.tryAdvance(seen::add));
+  }
+
+  /**
+   * A node emptied at the end of the list goes to the pool and is the next
+   * one handed out; with the pool off, every node is a miss.
+   */
+  @Test
+  public void poolReusesEmptiedNodes()
+  {
+	  StoutList<Integer> list = new StoutList<>(4);
+	  list.setNodePoolCapacity(8);
+	  for (int i = 0; i < 16; i++)
+		  list.add(i);
+	  assertEquals(0, list.nodePoolHits());
+	  assertEquals(4, list.nodePoolMisses());
+
+	  StoutList<Integer>.Node last = list.tail.previous;
+	  for (int i = 15; i >= 12; i--)
+		  list.remove(i);
+	  list.add(100);
+	  assertSame(last, list.tail.previous);
+	  assertEquals(1, list.nodePoolHits());
+	  assertEquals(4, list.nodePoolMisses());
+
+	  list.setNodePoolCapacity(0);
+	  for (int i = 12; i >= 8; i--)
+		  list.remove(i);
+	  list.add(200);
+	  assertEquals(1, list.nodePoolHits());
+	  assertEquals(5, list.nodePoolMisses());
+  }
+
+  /**
+   * Under churn at random positions, a list whose size stays about the same
+   * takes most of its nodes from the pool, and every node it holds was once
+   * counted as a miss.
+   */
+  @Test
+  public void poolCountsUnderChurn()
+  {
+	  Random random = new Random(14);
+	  StoutList<Integer> list = new StoutList<>(4);
+	  list.setNodePoolCapacity(16);
+	  List<Integer> model = new ArrayList<>();
+	  for (int i = 0; i < 400; i++) {
+		  list.add(i);
+		  model.add(i);
+	  }
+	  Set<StoutList<Integer>.Node> seen = nodes(list);
+	  long misses = list.nodePoolMisses();
+	  assertEquals(100, misses);
+
+	  for (int k = 0; k < 20000; k++) {
+		  int pos = random.nextInt(model.size());
+		  if (random.nextBoolean() && model.size() > 300) {
+			  assertEquals(model.remove(pos), list.remove(pos));
+		  } else if (model.size() < 500) {
+			  list.add(pos, 1000 + k);
+			  model.add(pos, 1000 + k);
+		  }
+		  seen.addAll(nodes(list));
+	  }
+	  checkNodes(list, model, 4, false);
+	  assertTrue(seen.size() <= list.nodePoolMisses(), seen.size() + " nodes, " + list.nodePoolMisses() + " misses");
+	  assertTrue(list.nodePoolHits() > 10 * (list.nodePoolMisses() - misses),
+			  list.nodePoolHits() + " hits, " + (list.nodePoolMisses() - misses) + " misses under churn");
+  }
+
+  /**
+   * A node the list had when a snapshot was taken may still be read by the
+   * snapshot, so once it leaves the list, one element at a time or all at
+   * once when the list is sorted, it is never pooled and never comes back.
+   * The snapshots keep their elements throughout.
+   */
+  @Test
+  public void poolNeverReusesSnapshotNodes()
+  {
+	  Random random = new Random(15);
+	  StoutList<Integer> list = new StoutList<>(4);
+	  list.setNodePoolCapacity(16);
+	  List<Integer> model = new ArrayList<>();
+	  List<List<Integer>> snapshots = new ArrayList<>(), expectedSnapshots = new ArrayList<>();
+	  Set<StoutList<Integer>.Node> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+	  Set<StoutList<Integer>.Node> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	  for (int k = 0; k < 10000; k++) {
+		  int pos = random.nextInt(model.size() + 1);
+		  if (k % 1000 == 0) {
+			  snapshots.add(list.snapshot());
+			  expectedSnapshots.add(new ArrayList<>(model));
+			  shared.addAll(nodes(list));
+		  } else if (k % 1000 == 10) {
+			  // Sorting drops every node at once, most of them still shared
+			  list.sort();
+			  model.sort(null);
+		  } else if (random.nextBoolean() && pos < model.size()) {
+			  assertEquals(model.remove(pos), list.remove(pos));
+		  } else if (model.size() < 200) {
+			  list.add(pos, k);
+			  model.add(pos, k);
+		  }
+
+		  Set<StoutList<Integer>.Node> current = nodes(list);
+		  for (StoutList<Integer>.Node node : current)
+			  assertTrue(!gone.contains(node), "snapshot node reused");
+		  for (StoutList<Integer>.Node node : shared)
+			  if (!current.contains(node))
+				  gone.add(node);
+	  }
+	  checkNodes(list, model, 4, false);
+	  assertTrue(list.nodePoolHits() > 0);
+	  assertTrue(!gone.isEmpty());
+	  for (int i = 0; i < snapshots.size(); i++)
+		  assertEquals(expectedSnapshots.get(i), new ArrayList<>(snapshots.get(i)));
+  }
+
+  /**
+   * A known sequence of insertions and removals is counted as the splits,
+   * borrows and merges it makes, and the occupancy histogram follows the
+   * nodes.  reset() clears the counters but keeps the histogram.
+   */
+  @Test
+  public void metricsCountKnownOperations()
+  {
+	  StoutList<Integer> list = new StoutList<>(4);
+	  for (int i = 0; i < 8; i++)
+		  list.add(i);
+	  StoutListMetrics metrics = list.enableMetrics();
+	  assertSame(metrics, list.metrics());
+	  assertArrayEquals(new long[] { 0, 0, 0, 0, 2 }, metrics.occupancy());
+
+	  list.add(2, 100);
+	  assertEquals("[(0, 1, 100, -), (2, 3, -, -), (4, 5, 6, 7)]", list.toStringInternal());
+	  assertEquals(1, metrics.splits());
+	  assertArrayEquals(new long[] { 0, 0, 1, 1, 1 }, metrics.occupancy());
+
+	  list.remove(3);
+	  assertEquals("[(0, 1, 100, -), (3, 4, -, -), (5, 6, 7, -)]", list.toStringInternal());
+	  assertEquals(1, metrics.borrows());
+	  assertArrayEquals(new long[] { 0, 0, 1, 2, 0 }, metrics.occupancy());
+
+	  list.remove(3);
+	  assertEquals("[(0, 1, 100, -), (4, 5, -, -), (6, 7, -, -)]", list.toStringInternal());
+	  assertEquals(2, metrics.borrows());
+	  list.remove(3);
+	  assertEquals("[(0, 1, 100, -), (5, 6, 7, -)]", list.toStringInternal());
+	  assertEquals(1, metrics.merges());
+	  assertArrayEquals(new long[] { 0, 0, 0, 2, 0 }, metrics.occupancy());
+	  assertEquals(1, metrics.splits());
+
+	  long finds = metrics.finds();
+	  list.get(4);
+	  assertEquals(finds + 1, metrics.finds());
+	  assertTrue(metrics.findHops() > 0 && metrics.meanFindHops() > 0);
+
+	  metrics.reset();
+	  assertEquals(0, metrics.splits() + metrics.borrows() + metrics.merges() + metrics.finds() + metrics.findHops());
+	  assertArrayEquals(new long[] { 0, 0, 0, 2, 0 }, metrics.occupancy());
+
+	  list.disableMetrics();
+	  assertNull(list.metrics());
+	  list.add(0, 200);
+	  assertEquals(0, metrics.splits());
+  }
+
+  /**
+   * Through random operations of every kind, the occupancy histogram stays
+   * equal to the one counted from the nodes, while splits, borrows and
+   * merges are counted.
+   */
+  @Test
+  public void metricsOccupancyFollowsNodes()
+  {
+	  Random random = new Random(16);
+	  long splits = 0, borrows = 0, merges = 0;
+	  for (int round = 0; round < ROUNDS / 4; round++) {
+		  int nodeSize = 2 * (2 + random.nextInt(3));
+		  StoutList<Integer> list = new StoutList<>(nodeSize);
+		  StoutListMetrics metrics = list.enableMetrics();
+		  for (int k = 0; k < OPERATIONS; k++) {
+			  int pos = random.nextInt(list.size() + 1);
+			  switch (random.nextInt(10)) {
+			  case 0:
+				  list.addAll(List.of(1000 + k, 2000 + k, 3000 + k));
+				  break;
+			  case 1:
+				  list.removeIf(x -> x % 7 == 0);
+				  break;
+			  case 2:
+				  if (random.nextInt(10) == 0)
+					  list.sort();
+				  break;
+			  case 3:
+				  list.compact();
+				  break;
+			  case 4:
+			  case 5:
+				  if (pos < list.size())
+					  list.remove(pos);
+				  break;
+			  default:
+				  list.add(pos, k);
+			  }
+			  long[] expected = new long[nodeSize + 1];
+			  for (StoutList<Integer>.Node node = list.head.next; node != list.tail; node = node.next)
+				  expected[node.count]++;
+			  assertArrayEquals(expected, metrics.occupancy());
+		  }
+		  splits += metrics.splits();
+		  borrows += metrics.borrows();
+		  merges += metrics.merges();
+	  }
+	  assertTrue(splits > 0 && borrows > 0 && merges > 0);
+  }
+
+  /**
+   * Returns the nodes of a list, compared by identity.
+   */
+  static <E extends Comparable<? super E>> Set<StoutList<E>.Node> nodes(StoutList<E> list)
+  {
+	  Set<StoutList<E>.Node> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+	  for (StoutList<E>.Node node = list.head.next; node != list.tail; node = node.next)
+		  nodes.add(node);
+	  return nodes;
+  }
+
+  /**
+   * Returns the number of nodes of a list that are not among the given ones.
+   */
+  static <E extends Comparable<? super E>> int copied(StoutList<E> list, Set<StoutList<E>.Node> shared)
+  {
+	  int copied = 0;
+	  for (StoutList<E>.Node node = list.head.next; node != list.tail; node = node.next)
+		  if (!shared.contains(node))
+			  copied++;
+	  return copied;
+  }
+
+  /**
+   * Checks that the list holds the same elements as the model and that its
+   * nodes are well formed: the links agree in both directions, each node
+   * holds between one and nodeSize elements with its unused slots empty,
+   * and every node except the last, and the first when firstExempt is set,
+   * is at least half full.
+   */
+  static <E extends Comparable<? super E>> void checkNodes(StoutList<E> list, List<E> model, int nodeSize, boolean firstExempt)
+  {
+	  assertEquals(model.size(), list.size());
+	  int total = 0;
+	  for (StoutList<E>.Node node = list.head; node != list.tail; node = node.next) {
+		  assertSame(node, node.next.previous, "broken back link");
+		  if (node == list.head)
+			  continue;
+		  assertTrue(node.count >= 1 && node.count <= nodeSize, "node count " + node.count);
+		  if (node.next != list.tail && !(firstExempt && node == list.head.next))
+			  assertTrue(node.count >= nodeSize / 2, "node less than half full: " + list.toStringInternal());
+		  for (int i = 0; i < node.count; i++)
+			  assertEquals(model.get(total + i), node.get(i));
+		  for (int i = node.count; i < nodeSize; i++)
+			  assertNull(node.get(i), "unused slot not cleared");
+		  total += node.count;
+	  }
+	  assertEquals(model.size(), total);
+	  assertEquals(model, new ArrayList<>(list));
+	  for (int i = 0; i < model.size(); i += 1 + model.size() / 8)
+		  assertEquals(model.get(i), list.get(i));
+  }
+}
@@ -0,0 +1,26 @@
+package edu.iastate.cs228.hw3.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so that allocation rates are
+ * reported next to the timings.  Takes the usual JMH command line options,
+ * e.g. a benchmark name pattern or -p size=1000.
+ */
+public class BenchmarkMain
+{
+	public static void main(String[] args) throws Exception
+	{
+		try {
+			CommandLineOptions options = new CommandLineOptions(args);
+			new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+		} catch (RunnerException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
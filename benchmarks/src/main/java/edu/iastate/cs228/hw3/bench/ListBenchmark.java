@@ -0,0 +1,290 @@
+package edu.iastate.cs228.hw3.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.iastate.cs228.hw3.Edit;
+import edu.iastate.cs228.hw3.StoutList;
+
+/**
+ * Compares StoutList with ArrayList and LinkedList.  The list parameter names
+ * the implementation, with the node size after the slash for StoutList.  The
+ * elements are distinct Integers boxed ahead of time, so boxing is not measured.
+ *
+ * The positional benchmarks insert an element and remove it again, so the
+ * size of the list stays the same from one call to the next.  Benchmarks that
+ * consume the list start each call from a fresh copy made outside the timing;
+ * the allocation rates the GC profiler reports for them include the copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmark
+{
+	@Param({"ArrayList", "LinkedList", "StoutList/4", "StoutList/16", "StoutList/64", "StoutList/256"})
+	public String list;
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	/**
+	 * Elements 0..size-1 in random order, followed by size elements not in the list.
+	 */
+	Integer[] values;
+
+	/**
+	 * List holding the first size values.
+	 */
+	List<Integer> filled;
+
+	/**
+	 * Rotating index used to pick the element looked up by contains().
+	 */
+	int probe;
+
+	/**
+	 * Position used by insertAndRemoveAdvancing(), moving up by one per call.
+	 */
+	int cursor;
+
+	/**
+	 * Random inserts and removals for applyBatch(), one for every 16 elements.
+	 */
+	List<Edit<Integer>> edits;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		values = new Integer[2 * size];
+		for (int i = 0; i < values.length; i++)
+			values[i] = i;
+		Collections.shuffle(java.util.Arrays.asList(values).subList(0, size), new Random(42));
+		filled = fill(newList(list), size);
+
+		// Alternate inserts and removals so the size stays the same
+		Random random = new Random(42);
+		edits = new ArrayList<>();
+		for (int i = 0; i < size / 16; i++) {
+			if ((i & 1) == 0)
+				edits.add(Edit.insert(random.nextInt(size + 1), values[size]));
+			else
+				edits.add(Edit.remove(random.nextInt(size + 1)));
+		}
+	}
+
+	/**
+	 * Creates an empty list of the named implementation.  StoutList keeps its
+	 * membership index, without which every add(E) would scan the list.
+	 */
+	static List<Integer> newList(String list)
+	{
+		switch (list) {
+		case "ArrayList":
+			return new ArrayList<>();
+		case "LinkedList":
+			return new LinkedList<>();
+		default:
+			return new StoutList<>(Integer.parseInt(list.substring(list.indexOf('/') + 1)), true);
+		}
+	}
+
+	/**
+	 * Adds the first n values to a list with add(E).
+	 */
+	List<Integer> fill(List<Integer> target, int n)
+	{
+		for (int i = 0; i < n; i++)
+			target.add(values[i]);
+		return target;
+	}
+
+	@Benchmark
+	public List<Integer> add()
+	{
+		return fill(newList(list), size);
+	}
+
+	@Benchmark
+	public Integer insertAndRemoveHead()
+	{
+		filled.add(0, values[size]);
+		return filled.remove(0);
+	}
+
+	@Benchmark
+	public Integer insertAndRemoveMiddle()
+	{
+		filled.add(size / 2, values[size]);
+		return filled.remove(size / 2);
+	}
+
+	@Benchmark
+	public Integer insertAndRemoveTail()
+	{
+		filled.add(size, values[size]);
+		return filled.remove(size);
+	}
+
+	@Benchmark
+	public Integer insertAndRemoveAdvancing()
+	{
+		cursor = cursor + 1 >= size ? 0 : cursor + 1;
+		filled.add(cursor, values[size]);
+		return filled.remove(cursor);
+	}
+
+	/**
+	 * Uses the list as a FIFO queue, through the Deque methods where the
+	 * list has them.  The polled element goes back in at the end, since
+	 * StoutList does not offer an element it already holds.
+	 */
+	@Benchmark
+	public Integer offerAndPoll()
+	{
+		if (filled instanceof Deque) {
+			Deque<Integer> queue = (Deque<Integer>) filled;
+			Integer first = queue.pollFirst();
+			queue.offerLast(first);
+			return first;
+		}
+		Integer first = filled.remove(0);
+		filled.add(first);
+		return first;
+	}
+
+	/**
+	 * Cuts the list in the middle and puts the two halves back together, the
+	 * back half in front.
+	 */
+	@Benchmark
+	public List<Integer> splitAndSplice()
+	{
+		int mid = size / 2;
+		if (filled instanceof StoutList) {
+			StoutList<Integer> list = (StoutList<Integer>) filled;
+			list.spliceIn(0, list.splitAt(mid));
+		} else {
+			List<Integer> back = new ArrayList<>(filled.subList(mid, size));
+			filled.subList(mid, size).clear();
+			filled.addAll(0, back);
+		}
+		return filled;
+	}
+
+	@Benchmark
+	public long iterate()
+	{
+		long sum = 0;
+		for (Integer item : filled)
+			sum += item;
+		return sum;
+	}
+
+	@Benchmark
+	public boolean containsPresent()
+	{
+		probe = probe + 1 == size ? 0 : probe + 1;
+		return filled.contains(values[probe]);
+	}
+
+	@Benchmark
+	public boolean containsAbsent()
+	{
+		return filled.contains(values[size]);
+	}
+
+	/**
+	 * State holding a fresh shuffled copy of the list for every call.
+	 */
+	@State(Scope.Thread)
+	public static class Fresh
+	{
+		List<Integer> copy;
+
+		@Setup(Level.Invocation)
+		public void setUp(ListBenchmark outer)
+		{
+			copy = outer.fill(newList(outer.list), outer.size);
+		}
+	}
+
+	@Benchmark
+	public List<Integer> iteratorRemove(Fresh fresh)
+	{
+		// Remove every other element
+		Iterator<Integer> iter = fresh.copy.iterator();
+		while (iter.hasNext()) {
+			iter.next();
+			if (iter.hasNext()) {
+				iter.next();
+				iter.remove();
+			}
+		}
+		return fresh.copy;
+	}
+
+	@Benchmark
+	public List<Integer> applyBatch(Fresh fresh)
+	{
+		if (fresh.copy instanceof StoutList) {
+			((StoutList<Integer>) fresh.copy).applyBatch(edits);
+		} else {
+			for (Edit<Integer> edit : edits) {
+				if (edit.op() == Edit.Op.INSERT)
+					fresh.copy.add(edit.pos(), edit.item());
+				else
+					fresh.copy.remove(edit.pos());
+			}
+		}
+		return fresh.copy;
+	}
+
+	@Benchmark
+	public List<Integer> removeIf(Fresh fresh)
+	{
+		fresh.copy.removeIf(item -> (item & 1) == 0);
+		return fresh.copy;
+	}
+
+	@Benchmark
+	public List<Integer> sort(Fresh fresh)
+	{
+		if (fresh.copy instanceof StoutList)
+			((StoutList<Integer>) fresh.copy).sort();
+		else
+			fresh.copy.sort(null);
+		return fresh.copy;
+	}
+
+	@Benchmark
+	public List<Integer> sortReverse(Fresh fresh)
+	{
+		if (fresh.copy instanceof StoutList)
+			((StoutList<Integer>) fresh.copy).sortReverse();
+		else
+			fresh.copy.sort(Collections.reverseOrder());
+		return fresh.copy;
+	}
+}